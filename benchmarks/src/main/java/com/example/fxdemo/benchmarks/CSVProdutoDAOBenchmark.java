@@ -0,0 +1,84 @@
+package com.example.fxdemo.benchmarks;
+
+import com.example.fxdemo.dao.CSVProdutoDAO;
+import com.example.fxdemo.dao.ResultadoAtualizacao;
+import com.example.fxdemo.model.Produto;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operações do CSVProdutoDAO sobre arquivos de tamanhos diferentes, nos dois modos: "memoria"
+ * (padrão da aplicação) e "arquivo" (cada operação lê e reescreve o CSV). A exclusão é medida
+ * junto com a reinserção da mesma linha, para o arquivo não encolher durante a medição.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CSVProdutoDAOBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int linhas;
+
+    @Param({"memoria", "arquivo"})
+    public String modo;
+
+    private Path arquivo;
+    private CSVProdutoDAO dao;
+    private List<Produto> catalogo;
+    private Produto[] atuais;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        arquivo = Files.createTempFile("fxdemo-csv", ".csv");
+        catalogo = new ArrayList<>(linhas);
+        for (int i = 0; i < linhas; i++) {
+            catalogo.add(new Produto("Produto " + i, i + 0.5, i % 500));
+        }
+        new CSVProdutoDAO(arquivo.toString(), false).salvarTodosProdutos(catalogo);
+        dao = new CSVProdutoDAO(arquivo.toString(), modo.equals("memoria"));
+        atuais = dao.listarTodos().toArray(new Produto[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws Exception {
+        CSVProdutoDAO.gravarPendentes();
+        Temporarios.apagarCSV(arquivo);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Produto> listarTodos() {
+        return dao.listarTodos();
+    }
+
+    @Benchmark
+    public ResultadoAtualizacao atualizar() {
+        int i = ThreadLocalRandom.current().nextInt(atuais.length);
+        Produto antigo = atuais[i];
+        Produto novo = new Produto(antigo.getNome(), antigo.getPreco(), antigo.getEstoque() + 1);
+        ResultadoAtualizacao resultado = dao.atualizar(antigo, novo);
+        atuais[i] = novo;
+        return resultado;
+    }
+
+    @Benchmark
+    public void deletarEInserir() {
+        Produto produto = atuais[ThreadLocalRandom.current().nextInt(atuais.length)];
+        dao.deletar(produto);
+        dao.inserir(produto);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void salvarTodosProdutos() {
+        dao.salvarTodosProdutos(catalogo);
+    }
+}
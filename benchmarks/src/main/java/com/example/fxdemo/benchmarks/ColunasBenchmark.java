@@ -0,0 +1,72 @@
+package com.example.fxdemo.benchmarks;
+
+import com.example.fxdemo.model.Produto;
+import com.example.fxdemo.model.ProdutosColunares;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agregação (valor em estoque) e busca por conteúdo: lista de objetos Produto contra
+ * ProdutosColunares. Os nomes se repetem, como em um catálogo real, e são instâncias distintas,
+ * como saem do leitor de CSV.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ColunasBenchmark {
+    @Param({"1000000"})
+    public int linhas;
+
+    private List<Produto> produtos;
+    private ProdutosColunares colunas;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        produtos = new ArrayList<>(linhas);
+        colunas = new ProdutosColunares(linhas);
+        for (int i = 0; i < linhas; i++) {
+            String nome = new String("Produto " + (i % 5000));
+            double preco = (i % 100000) + 0.25;
+            produtos.add(new Produto(i + 1, nome, preco, i % 500));
+            colunas.adicionar(i + 1, nome, ProdutosColunares.centavos(preco), i % 500);
+        }
+    }
+
+    @Benchmark
+    public long valorEmEstoqueObjetos() {
+        long soma = 0;
+        for (Produto produto : produtos) {
+            soma += Math.round(produto.getPreco() * 100) * produto.getEstoque();
+        }
+        return soma;
+    }
+
+    @Benchmark
+    public long valorEmEstoqueColunas() {
+        return colunas.valorEmEstoqueCentavos();
+    }
+
+    // Primeira ocorrência na linha 99.999: a busca percorre 10% da lista
+    @Benchmark
+    public int procurarObjetos() {
+        for (int i = 0; i < produtos.size(); i++) {
+            Produto produto = produtos.get(i);
+            if (produto.getNome().equals("Produto 4999") && Math.round(produto.getPreco() * 100) == 9999925
+                    && produto.getEstoque() == 499) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Benchmark
+    public int procurarColunas() {
+        return colunas.procurar("Produto 4999", 9999925, 499);
+    }
+}
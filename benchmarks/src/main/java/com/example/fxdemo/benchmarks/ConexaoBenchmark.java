@@ -0,0 +1,94 @@
+package com.example.fxdemo.benchmarks;
+
+import com.example.fxdemo.dao.PoolConexoes;
+import com.example.fxdemo.dao.ProdutoDAO;
+import com.example.fxdemo.model.Produto;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latência por operação do ProdutoDAO: uma conexão nova a cada chamada
+ * (comportamento antigo, via DriverManager) contra conexões reaproveitadas do pool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConexaoBenchmark {
+    private static final int LINHAS = 1_000;
+
+    private Path arquivo;
+    private String url;
+    private ProdutoDAO dao;
+    // Indexados pelo id; a versão de cada um acompanha as atualizações
+    private Produto[] produtos;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        arquivo = Files.createTempFile("fxdemo-bench", ".db");
+        url = "jdbc:sqlite:" + arquivo;
+        dao = new ProdutoDAO(url);
+        produtos = new Produto[LINHAS + 1];
+        for (int i = 0; i < LINHAS; i++) {
+            Produto produto = new Produto("Produto " + i, i * 1.5, i);
+            dao.inserir(produto);
+            produtos[produto.getId()] = produto;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws Exception {
+        PoolConexoes.fecharTodos();
+        Files.deleteIfExists(arquivo);
+    }
+
+    @Benchmark
+    public Produto buscarPorIdConexaoPorChamada() throws SQLException {
+        int id = ThreadLocalRandom.current().nextInt(1, LINHAS + 1);
+        try (Connection conn = DriverManager.getConnection(url);
+             PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM produtos WHERE id = ?")) {
+            pstmt.setInt(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next()
+                        ? new Produto(rs.getInt("id"), rs.getString("nome"), rs.getDouble("preco"), rs.getInt("estoque"))
+                        : null;
+            }
+        }
+    }
+
+    @Benchmark
+    public Produto buscarPorIdPool() {
+        return dao.buscarPorId(ThreadLocalRandom.current().nextInt(1, LINHAS + 1));
+    }
+
+    @Benchmark
+    public void atualizarConexaoPorChamada() throws SQLException {
+        int id = ThreadLocalRandom.current().nextInt(1, LINHAS + 1);
+        try (Connection conn = DriverManager.getConnection(url);
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "UPDATE produtos SET nome = ?, preco = ?, estoque = ?, versao = versao + 1 WHERE id = ?")) {
+            pstmt.setString(1, "Produto " + id);
+            pstmt.setDouble(2, id * 1.5);
+            pstmt.setInt(3, id);
+            pstmt.setInt(4, id);
+            pstmt.executeUpdate();
+        }
+    }
+
+    @Benchmark
+    public void atualizarPool() {
+        int id = ThreadLocalRandom.current().nextInt(1, LINHAS + 1);
+        dao.atualizar(produtos[id]);
+    }
+}
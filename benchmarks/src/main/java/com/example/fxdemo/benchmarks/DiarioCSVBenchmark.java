@@ -0,0 +1,63 @@
+package com.example.fxdemo.benchmarks;
+
+import com.example.fxdemo.dao.CSVProdutoDAO;
+import com.example.fxdemo.model.Produto;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vazão sustentada de edições no CSV: reescrita completa do arquivo a cada edição (modo arquivo)
+ * contra o modo em memória com diário de alterações e compactação em segundo plano.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DiarioCSVBenchmark {
+    @Param({"10000"})
+    public int linhas;
+
+    @Param({"arquivo", "memoria"})
+    public String modo;
+
+    private Path arquivo;
+    private CSVProdutoDAO dao;
+    private Produto[] atuais;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        arquivo = Files.createTempFile("fxdemo-diario", ".csv");
+        List<Produto> catalogo = new ArrayList<>(linhas);
+        for (int i = 0; i < linhas; i++) {
+            catalogo.add(new Produto("Produto " + i, i + 0.5, i));
+        }
+        new CSVProdutoDAO(arquivo.toString(), false).salvarTodosProdutos(catalogo);
+        dao = new CSVProdutoDAO(arquivo.toString(), modo.equals("memoria"));
+        atuais = dao.listarTodos().toArray(new Produto[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws Exception {
+        CSVProdutoDAO.gravarPendentes();
+        Files.deleteIfExists(arquivo);
+        Files.deleteIfExists(Path.of(arquivo + ".log"));
+    }
+
+    @Benchmark
+    public void editarUmaLinha() {
+        int i = ThreadLocalRandom.current().nextInt(atuais.length);
+        Produto antigo = atuais[i];
+        Produto novo = new Produto(antigo.getNome(), antigo.getPreco(), antigo.getEstoque() + 1);
+        dao.atualizar(antigo, novo);
+        novo.setId(antigo.getId());
+        atuais[i] = novo;
+    }
+}
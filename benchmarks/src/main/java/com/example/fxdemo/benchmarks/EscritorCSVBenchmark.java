@@ -0,0 +1,77 @@
+package com.example.fxdemo.benchmarks;
+
+import com.example.fxdemo.csv.EscritorCSV;
+import com.example.fxdemo.model.Produto;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gravação do CSV completo: String.format por linha contra o EscritorCSV.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EscritorCSVBenchmark {
+    @Param({"1000000"})
+    public int linhas;
+
+    private Path arquivo;
+    private List<Produto> produtos;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        arquivo = Files.createTempFile("fxdemo-escritor", ".csv");
+        produtos = new ArrayList<>(linhas);
+        for (int i = 0; i < linhas; i++) {
+            produtos.add(new Produto("Produto " + i, (i % 100000) + 0.25, i % 500));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws Exception {
+        Files.deleteIfExists(arquivo);
+    }
+
+    @Benchmark
+    public void stringFormat() throws Exception {
+        try (FileChannel canal = abrir()) {
+            Writer writer = new BufferedWriter(Channels.newWriter(canal, StandardCharsets.UTF_8), 1 << 16);
+            writer.write("nome,preco,estoque\n");
+            for (Produto produto : produtos) {
+                writer.write(String.format("%s,%.2f,%d", produto.getNome(), produto.getPreco(), produto.getEstoque()));
+                writer.write('\n');
+            }
+            writer.flush();
+        }
+    }
+
+    @Benchmark
+    public void escritorCSV() throws Exception {
+        try (FileChannel canal = abrir()) {
+            EscritorCSV escritor = new EscritorCSV(canal);
+            escritor.escreverCabecalho();
+            for (Produto produto : produtos) {
+                escritor.escrever(produto);
+            }
+            escritor.descarregar();
+        }
+    }
+
+    private FileChannel abrir() throws Exception {
+        return FileChannel.open(arquivo, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+}
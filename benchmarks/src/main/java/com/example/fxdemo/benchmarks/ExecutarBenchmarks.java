@@ -0,0 +1,22 @@
+package com.example.fxdemo.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ponto de entrada do benchmarks.jar: o mesmo do JMH, mas, se nenhum formato de resultado for
+ * pedido ({@code -rf}), grava os resultados em JSON, para comparar uma versão com a outra.
+ * O arquivo é o {@code -rff} informado ou {@code jmh-result.json} no diretório atual.
+ */
+public final class ExecutarBenchmarks {
+    private ExecutarBenchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> argumentos = new ArrayList<>(List.of(args));
+        if (!argumentos.contains("-rf")) {
+            argumentos.addAll(0, List.of("-rf", "json"));
+        }
+        org.openjdk.jmh.Main.main(argumentos.toArray(new String[0]));
+    }
+}
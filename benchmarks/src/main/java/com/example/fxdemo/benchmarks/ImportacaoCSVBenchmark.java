@@ -0,0 +1,61 @@
+package com.example.fxdemo.benchmarks;
+
+import com.example.fxdemo.csv.ImportadorCSV;
+import com.example.fxdemo.dao.CSVProdutoDAO;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * O botão "Carregar CSV" da tela CSV sem a interface: importação de um arquivo externo e
+ * gravação no CSV local ({@link CSVProdutoDAO#importar}), que começa vazio a cada iteração.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImportacaoCSVBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int linhas;
+
+    private Path externo;
+    private Path local;
+    private CSVProdutoDAO dao;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        externo = Files.createTempFile("fxdemo-externo", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(externo)) {
+            writer.write("nome,preco,estoque\n");
+            for (int i = 0; i < linhas; i++) {
+                writer.write("Produto " + i + "," + (i % 100000) + "." + (i % 90 + 10) + "," + (i % 500) + "\n");
+            }
+        }
+        local = Files.createTempFile("fxdemo-local", ".csv");
+        Files.delete(local);
+        dao = new CSVProdutoDAO(local.toString());
+    }
+
+    @Setup(Level.Iteration)
+    public void esvaziar() {
+        dao.salvarTodosProdutos(List.of());
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws Exception {
+        CSVProdutoDAO.gravarPendentes();
+        Files.deleteIfExists(externo);
+        Temporarios.apagarCSV(local);
+    }
+
+    @Benchmark
+    public ImportadorCSV.Resultado importar() throws Exception {
+        return dao.importar(externo, progresso -> { }, trecho -> { });
+    }
+}
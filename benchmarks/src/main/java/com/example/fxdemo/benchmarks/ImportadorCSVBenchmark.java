@@ -0,0 +1,59 @@
+package com.example.fxdemo.benchmarks;
+
+import com.example.fxdemo.csv.ImportadorCSV;
+import com.example.fxdemo.csv.LeitorCSV;
+import com.example.fxdemo.model.Produto;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Importação de um arquivo de fornecedor grande: LeitorCSV sequencial contra o ImportadorCSV
+ * (arquivo mapeado, partes lidas em paralelo no ForkJoinPool comum).
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImportadorCSVBenchmark {
+    @Param({"5000000"})
+    public int linhas;
+
+    private Path arquivo;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        arquivo = Files.createTempFile("fxdemo-importacao", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(arquivo)) {
+            writer.write("nome,preco,estoque\n");
+            for (int i = 0; i < linhas; i++) {
+                writer.write("Produto " + i + "," + (i % 100000) + "." + (i % 90 + 10) + "," + (i % 500) + "\n");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws Exception {
+        Files.deleteIfExists(arquivo);
+    }
+
+    @Benchmark
+    public List<Produto> sequencial() throws Exception {
+        List<Produto> produtos = new ArrayList<>();
+        new LeitorCSV(LeitorCSV.Cabecalho.DETECTAR, (nome, preco, estoque) ->
+                produtos.add(new Produto(nome, preco, estoque))).ler(arquivo);
+        return produtos;
+    }
+
+    @Benchmark
+    public ImportadorCSV.Resultado paralelo() throws Exception {
+        return new ImportadorCSV(LeitorCSV.Cabecalho.DETECTAR).importar(arquivo, progresso -> { });
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.fxdemo.benchmarks;
+
+import com.example.fxdemo.csv.LeitorCSV;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leitura de um CSV grande: readLine + split + parseDouble contra o LeitorCSV em fluxo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LeitorCSVBenchmark {
+    @Param({"1000000"})
+    public int linhas;
+
+    private Path arquivo;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        arquivo = Files.createTempFile("fxdemo-leitor", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(arquivo)) {
+            writer.write("nome,preco,estoque\n");
+            for (int i = 0; i < linhas; i++) {
+                writer.write("Produto " + i + "," + (i % 100000) + "." + (i % 90 + 10) + "," + (i % 500) + "\n");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws Exception {
+        Files.deleteIfExists(arquivo);
+    }
+
+    @Benchmark
+    public void readLineSplit(Blackhole bh) throws Exception {
+        try (BufferedReader br = new BufferedReader(new FileReader(arquivo.toFile()))) {
+            br.readLine();
+            String linha;
+            while ((linha = br.readLine()) != null) {
+                String[] colunas = linha.split(",");
+                bh.consume(colunas[0].trim());
+                bh.consume(Double.parseDouble(colunas[1].trim()));
+                bh.consume(Integer.parseInt(colunas[2].trim()));
+            }
+        }
+    }
+
+    @Benchmark
+    public void leitorCSV(Blackhole bh) throws Exception {
+        new LeitorCSV(LeitorCSV.Cabecalho.SEMPRE, (nome, preco, estoque) -> {
+            bh.consume(nome);
+            bh.consume(preco);
+            bh.consume(estoque);
+        }).ler(arquivo);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.fxdemo.benchmarks;
+
+import com.example.fxdemo.dao.PoolConexoes;
+import com.example.fxdemo.dao.ProdutoDAO;
+import com.example.fxdemo.model.Produto;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carga de um catálogo: um INSERT auto-commitado por produto contra inserirTodos.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoteBenchmark {
+    @Param({"10000"})
+    public int linhas;
+
+    private Path arquivo;
+    private ProdutoDAO dao;
+    private List<Produto> catalogo;
+
+    @Setup(Level.Iteration)
+    public void preparar() throws Exception {
+        arquivo = Files.createTempFile("fxdemo-lote", ".db");
+        dao = new ProdutoDAO("jdbc:sqlite:" + arquivo);
+        catalogo = new ArrayList<>(linhas);
+        for (int i = 0; i < linhas; i++) {
+            catalogo.add(new Produto("Produto " + i, i * 1.5, i));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void encerrar() throws Exception {
+        PoolConexoes.fecharTodos();
+        Files.deleteIfExists(arquivo);
+        Files.deleteIfExists(Path.of(arquivo + "-wal"));
+        Files.deleteIfExists(Path.of(arquivo + "-shm"));
+    }
+
+    @Benchmark
+    public void inserirUmPorUm() {
+        for (Produto produto : catalogo) {
+            dao.inserir(produto);
+        }
+    }
+
+    @Benchmark
+    public void inserirTodos() {
+        dao.inserirTodos(catalogo);
+    }
+}
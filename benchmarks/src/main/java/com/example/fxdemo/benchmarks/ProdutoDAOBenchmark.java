@@ -0,0 +1,93 @@
+package com.example.fxdemo.benchmarks;
+
+import com.example.fxdemo.dao.InstantaneoProdutos;
+import com.example.fxdemo.dao.PoolConexoes;
+import com.example.fxdemo.dao.ProdutoDAO;
+import com.example.fxdemo.dao.ResultadoAjuste;
+import com.example.fxdemo.dao.ResultadoAtualizacao;
+import com.example.fxdemo.model.Produto;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operações do dia a dia do ProdutoDAO sobre tabelas de tamanhos diferentes, com o pool e a
+ * cópia mapeada como na aplicação. {@code inserir} faz a tabela crescer durante a medição.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProdutoDAOBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int linhas;
+
+    private Path arquivo;
+    private ProdutoDAO dao;
+    // Indexados pelo id; a versão de cada um acompanha as atualizações
+    private Produto[] produtos;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        arquivo = Files.createTempFile("fxdemo-dao", ".db");
+        dao = new ProdutoDAO("jdbc:sqlite:" + arquivo);
+        List<Produto> catalogo = new ArrayList<>(linhas);
+        for (int i = 0; i < linhas; i++) {
+            catalogo.add(new Produto("Produto " + i, i * 1.5, i % 500));
+        }
+        dao.inserirTodos(catalogo);
+        dao.sincronizarInstantaneo();
+        produtos = new Produto[linhas + 1];
+        for (Produto produto : catalogo) {
+            produtos[produto.getId()] = produto;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws Exception {
+        PoolConexoes.fecharTodos();
+        InstantaneoProdutos.fecharTodos();
+        Temporarios.apagarBanco(arquivo);
+    }
+
+    @Benchmark
+    public Produto buscarPorId() {
+        return dao.buscarPorId(idAleatorio());
+    }
+
+    @Benchmark
+    public ResultadoAtualizacao atualizar() {
+        Produto produto = produtos[idAleatorio()];
+        produto.setEstoque(produto.getEstoque() + 1);
+        return dao.atualizar(produto);
+    }
+
+    @Benchmark
+    public ResultadoAjuste ajustarEstoque() {
+        return dao.ajustarEstoque(idAleatorio(), 1);
+    }
+
+    @Benchmark
+    public Produto inserir() {
+        Produto produto = new Produto("Produto novo", 9.9, 1);
+        dao.inserir(produto);
+        return produto;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Produto> listarTodos() {
+        return dao.listarTodos();
+    }
+
+    private int idAleatorio() {
+        return ThreadLocalRandom.current().nextInt(1, linhas + 1);
+    }
+}
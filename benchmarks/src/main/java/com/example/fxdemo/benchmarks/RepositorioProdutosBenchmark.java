@@ -0,0 +1,116 @@
+package com.example.fxdemo.benchmarks;
+
+import com.example.fxdemo.dao.CSVProdutoDAO;
+import com.example.fxdemo.dao.CancelamentoConsulta;
+import com.example.fxdemo.dao.InstantaneoProdutos;
+import com.example.fxdemo.dao.PoolConexoes;
+import com.example.fxdemo.dao.ProdutoDAO;
+import com.example.fxdemo.dao.RepositorioProdutos;
+import com.example.fxdemo.dao.RepositorioProdutosCSV;
+import com.example.fxdemo.dao.RepositorioProdutosMemoria;
+import com.example.fxdemo.dao.ResultadoAjuste;
+import com.example.fxdemo.dao.ResultadoAtualizacao;
+import com.example.fxdemo.model.Produto;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * As mesmas operações de {@link RepositorioProdutos} em cada mecanismo, lado a lado, para
+ * escolher o mais rápido para cada uso. {@code inserir} faz o cadastro crescer durante a medição.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepositorioProdutosBenchmark {
+    @Param({"sqlite", "csv", "memoria"})
+    public String mecanismo;
+
+    @Param({"1000", "100000"})
+    public int linhas;
+
+    private Path arquivo;
+    private RepositorioProdutos repositorio;
+    // Indexados pela ordem de inserção; a versão de cada um acompanha as atualizações
+    private Produto[] produtos;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        arquivo = Files.createTempFile("fxdemo-repositorio", mecanismo.equals("csv") ? ".csv" : ".db");
+        repositorio = switch (mecanismo) {
+            case "sqlite" -> new ProdutoDAO("jdbc:sqlite:" + arquivo);
+            case "csv" -> {
+                Files.delete(arquivo);
+                yield new RepositorioProdutosCSV(arquivo.toString());
+            }
+            default -> new RepositorioProdutosMemoria();
+        };
+        List<Produto> catalogo = new ArrayList<>(linhas);
+        for (int i = 0; i < linhas; i++) {
+            catalogo.add(new Produto("Produto " + i, i * 1.5, i % 500));
+        }
+        repositorio.inserirTodos(catalogo);
+        produtos = catalogo.toArray(new Produto[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws Exception {
+        PoolConexoes.fecharTodos();
+        InstantaneoProdutos.fecharTodos();
+        CSVProdutoDAO.gravarPendentes();
+        Temporarios.apagarBanco(arquivo);
+        Temporarios.apagarCSV(arquivo);
+    }
+
+    @Benchmark
+    public Produto buscarPorId() {
+        return repositorio.buscarPorId(aleatorio().getId());
+    }
+
+    @Benchmark
+    public ResultadoAtualizacao atualizar() {
+        Produto produto = aleatorio();
+        produto.setEstoque(produto.getEstoque() + 1);
+        return repositorio.atualizar(produto);
+    }
+
+    @Benchmark
+    public ResultadoAjuste ajustarEstoque() {
+        return repositorio.ajustarEstoque(aleatorio().getId(), 1);
+    }
+
+    @Benchmark
+    public Produto inserir() {
+        Produto produto = new Produto("Produto novo", 9.9, 1);
+        repositorio.inserir(produto);
+        return produto;
+    }
+
+    @Benchmark
+    public List<Produto> listarPagina() {
+        return repositorio.listarPagina(aleatorio().getId(), 200);
+    }
+
+    @Benchmark
+    public List<Produto> buscarPorNomePrefixo() {
+        return repositorio.buscarPorNomePrefixo("Produto " + ThreadLocalRandom.current().nextInt(linhas), 100);
+    }
+
+    @Benchmark
+    public List<Produto> buscarTexto() {
+        return repositorio.buscarTexto(String.valueOf(ThreadLocalRandom.current().nextInt(linhas)), 0, 100,
+                new CancelamentoConsulta());
+    }
+
+    private Produto aleatorio() {
+        return produtos[ThreadLocalRandom.current().nextInt(produtos.length)];
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.fxdemo.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Limpeza dos arquivos criados pelos benchmarks.
+ */
+final class Temporarios {
+    private Temporarios() {
+    }
+
+    /**
+     * Apaga o banco SQLite e os arquivos que ficam ao lado dele (WAL, cópia mapeada e a trava dela).
+     */
+    static void apagarBanco(Path banco) throws IOException {
+        for (String sufixo : new String[]{"", "-wal", "-shm", ".inst", ".inst.nomes", ".inst.trava"}) {
+            Files.deleteIfExists(Path.of(banco + sufixo));
+        }
+    }
+
+    /**
+     * Apaga o CSV e o diário de alterações do modo em memória.
+     */
+    static void apagarCSV(Path csv) throws IOException {
+        Files.deleteIfExists(csv);
+        Files.deleteIfExists(Path.of(csv + ".log"));
+    }
+}
@@ -1,5 +1,10 @@
 package com.example.fxdemo;
 
+import com.example.fxdemo.dao.CSVProdutoDAO;
+import com.example.fxdemo.dao.InstantaneoProdutos;
+import com.example.fxdemo.dao.PoolConexoes;
+import com.example.fxdemo.dao.ProdutoDAOComGravacaoAgrupada;
+import com.example.fxdemo.service.ServicoAssincrono;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -17,7 +22,18 @@ public class HelloApplication extends Application {
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        // Espera as tarefas em andamento, grava o CSV pendente e as escritas agrupadas na fila,
+        // marca a cópia mapeada dos produtos como íntegra e fecha as conexões do pool do SQLite
+        ServicoAssincrono.encerrar();
+        CSVProdutoDAO.gravarPendentes();
+        ProdutoDAOComGravacaoAgrupada.fecharDaAplicacao();
+        InstantaneoProdutos.fecharTodos();
+        PoolConexoes.fecharTodos();
+    }
+
     public static void main(String[] args) {
         launch();
     }
-}
\ No newline at end of file
+}
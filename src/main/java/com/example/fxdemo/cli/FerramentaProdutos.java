@@ -0,0 +1,196 @@
+package com.example.fxdemo.cli;
+
+import com.example.fxdemo.csv.ImportadorCSV;
+import com.example.fxdemo.csv.LeitorCSV;
+import com.example.fxdemo.dao.ExportadorProdutos;
+import com.example.fxdemo.dao.InstantaneoProdutos;
+import com.example.fxdemo.dao.PoolConexoes;
+import com.example.fxdemo.dao.ProdutoDAO;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Importação e exportação de produtos sem interface gráfica, para rodar em servidores (ex.: a
+ * sincronização noturna com fornecedores). Usa o mesmo ProdutoDAO e o mesmo leitor de CSV da
+ * aplicação, sem depender do JavaFX:
+ * <pre>
+ * java -cp target/classes:&lt;dependências&gt; com.example.fxdemo.cli.FerramentaProdutos importar fornecedor.csv
+ * java -cp ... com.example.fxdemo.cli.FerramentaProdutos exportar produtos.csv --banco=produtos.db
+ * java -cp ... com.example.fxdemo.cli.FerramentaProdutos exportar produtos.csv.gz --gzip --partes=4
+ * </pre>
+ * O andamento vai para a saída de erro a cada segundo; o resumo final, para a saída padrão.
+ */
+public final class FerramentaProdutos {
+    // Códigos de saída
+    static final int SUCESSO = 0;
+    static final int FALHA = 1;
+    static final int USO_INCORRETO = 2;
+    // Importação gravada, mas com linhas mal formatadas que foram ignoradas
+    static final int LINHAS_INVALIDAS = 3;
+
+    private static final String BANCO_PADRAO = "produtos.db";
+    private static final int INVALIDAS_MOSTRADAS = 20;
+    private static final long INTERVALO_ANDAMENTO_NANOS = 1_000_000_000L;
+
+    private final PrintStream saida;
+    private final PrintStream andamento;
+
+    FerramentaProdutos(PrintStream saida, PrintStream andamento) {
+        this.saida = saida;
+        this.andamento = andamento;
+    }
+
+    public static void main(String[] args) {
+        int codigo;
+        try {
+            codigo = new FerramentaProdutos(System.out, System.err).executar(args);
+        } finally {
+            InstantaneoProdutos.fecharTodos();
+            PoolConexoes.fecharTodos();
+        }
+        System.exit(codigo);
+    }
+
+    int executar(String[] args) {
+        if (args.length < 2) {
+            return uso(null);
+        }
+        String comando = args[0];
+        if (!comando.equals("importar") && !comando.equals("exportar")) {
+            return uso("Comando desconhecido: " + comando);
+        }
+        Path arquivo = Path.of(args[1]);
+        String banco = BANCO_PADRAO;
+        Integer lote = null;
+        int partes = 1;
+        boolean gzip = false;
+        for (int i = 2; i < args.length; i++) {
+            String opcao = args[i];
+            try {
+                if (opcao.startsWith("--banco=")) {
+                    banco = opcao.substring("--banco=".length());
+                } else if (opcao.startsWith("--lote=")) {
+                    lote = Integer.parseInt(opcao.substring("--lote=".length()));
+                } else if (opcao.startsWith("--partes=") && comando.equals("exportar")) {
+                    partes = Integer.parseInt(opcao.substring("--partes=".length()));
+                } else if (opcao.equals("--gzip") && comando.equals("exportar")) {
+                    gzip = true;
+                } else {
+                    return uso("Opção desconhecida: " + opcao);
+                }
+            } catch (NumberFormatException e) {
+                return uso("Número inválido em " + opcao);
+            }
+        }
+
+        String url = "jdbc:sqlite:" + banco;
+        // Sem a cópia mapeada: ela é da aplicação, que pode estar aberta com o mesmo banco
+        ProdutoDAO dao = new ProdutoDAO(url, false);
+        try {
+            if (lote != null) {
+                dao.setTamanhoLote(lote);
+            }
+            return comando.equals("importar") ? importar(arquivo, dao) : exportar(arquivo, url, dao, partes, gzip);
+        } catch (IllegalArgumentException e) {
+            return uso(e.getMessage());
+        } catch (IOException | FalhaNoBanco e) {
+            andamento.println("Erro: " + e.getMessage());
+            return FALHA;
+        }
+    }
+
+    /**
+     * CSV → banco. As partes do arquivo são lidas em paralelo e cada uma é gravada em uma
+     * transação (INSERTs em lotes) assim que fica pronta, na ordem do arquivo.
+     */
+    private int importar(Path arquivo, ProdutoDAO dao) throws IOException {
+        if (!Files.isReadable(arquivo)) {
+            throw new IOException("Não foi possível ler " + arquivo);
+        }
+        long inicio = System.nanoTime();
+        AtomicLong gravadas = new AtomicLong();
+        AtomicLong ultimoAviso = new AtomicLong(inicio);
+        AtomicLong invalidasMostradas = new AtomicLong();
+
+        ImportadorCSV.Resumo resumo = new ImportadorCSV(LeitorCSV.Cabecalho.DETECTAR)
+                .importarEmTrechos(arquivo, progresso -> {
+                    if (avisar(ultimoAviso)) {
+                        andamento.printf("%5.1f%% | %,d lidas | %,d gravadas | %,.0f linhas/s | %.1f MB/s%n",
+                                progresso.fracao() * 100, progresso.validas(), gravadas.get(),
+                                gravadas.get() * 1e9 / (System.nanoTime() - inicio), progresso.mbPorSegundo());
+                    }
+                }, trecho -> {
+                    for (ImportadorCSV.LinhaInvalida invalida : trecho.invalidas()) {
+                        if (invalidasMostradas.getAndIncrement() < INVALIDAS_MOSTRADAS) {
+                            andamento.println("Linha " + invalida.numeroLinha() + " ignorada: " + invalida.conteudo());
+                        }
+                    }
+                    if (!trecho.produtos().isEmpty() && !dao.inserirTodos(trecho.produtos())) {
+                        throw new FalhaNoBanco("Falha ao gravar no banco após " + gravadas.get() + " linhas");
+                    }
+                    gravadas.addAndGet(trecho.produtos().size());
+                });
+
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        saida.printf("Importadas %,d linhas de %s em %.2f s (%,.0f linhas/s, %.1f MB/s); %,d inválidas%n",
+                gravadas.get(), arquivo, segundos, gravadas.get() / segundos, resumo.bytes() / 1048576.0 / segundos,
+                resumo.invalidas());
+        return resumo.invalidas() > 0 ? LINHAS_INVALIDAS : SUCESSO;
+    }
+
+    /**
+     * Banco → CSV em memória constante, com {@code --partes=N} arquivos escritos em paralelo e
+     * {@code --gzip} opcionais (ver {@link ExportadorProdutos}).
+     */
+    private int exportar(Path destino, String url, ProdutoDAO dao, int partes, boolean gzip) throws IOException {
+        long inicio = System.nanoTime();
+        AtomicLong ultimoAviso = new AtomicLong(inicio);
+        int total = dao.contar();
+        ExportadorProdutos exportador = new ExportadorProdutos(url);
+        exportador.setPartes(partes);
+        exportador.setGzip(gzip);
+        ExportadorProdutos.Resultado resultado = exportador.exportar(destino, exportadas -> {
+            if (avisar(ultimoAviso)) {
+                andamento.printf("%5.1f%% | %,d exportadas | %,.0f linhas/s%n",
+                        total == 0 ? 100.0 : Math.min(100.0, exportadas * 100.0 / total), exportadas,
+                        exportadas * 1e9 / (System.nanoTime() - inicio));
+            }
+        });
+
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        saida.printf("Exportadas %,d linhas para %s em %.2f s (%,.0f linhas/s, %.1f MB/s)%n",
+                resultado.linhas(), resultado.arquivos().size() == 1 ? resultado.arquivos().get(0)
+                        : resultado.arquivos().size() + " arquivos", segundos, resultado.linhas() / segundos,
+                resultado.bytes() / 1048576.0 / segundos);
+        return SUCESSO;
+    }
+
+    // No máximo um aviso de andamento por intervalo, vindo de qualquer thread
+    private static boolean avisar(AtomicLong ultimoAviso) {
+        long agora = System.nanoTime();
+        long ultimo = ultimoAviso.get();
+        return agora - ultimo >= INTERVALO_ANDAMENTO_NANOS && ultimoAviso.compareAndSet(ultimo, agora);
+    }
+
+    private int uso(String erro) {
+        if (erro != null) {
+            andamento.println(erro);
+        }
+        andamento.println("Uso: FerramentaProdutos importar|exportar <arquivo.csv> [--banco=" + BANCO_PADRAO
+                + "] [--lote=N] [--partes=N] [--gzip]");
+        return USO_INCORRETO;
+    }
+
+    // O ProdutoDAO registra o erro e só informa que a operação falhou
+    private static final class FalhaNoBanco extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        FalhaNoBanco(String mensagem) {
+            super(mensagem);
+        }
+    }
+}
@@ -1,16 +1,37 @@
 package com.example.fxdemo.controllers;
 
+import com.example.fxdemo.dao.CancelamentoConsulta;
 import com.example.fxdemo.dao.ProdutoDAO;
+import com.example.fxdemo.dao.RepositorioProdutos;
+import com.example.fxdemo.dao.ResultadoAtualizacao;
 import com.example.fxdemo.model.Produto;
+import com.example.fxdemo.service.ServicoAssincrono;
+import javafx.animation.PauseTransition;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
+import javafx.util.Duration;
+
+import java.util.List;
+import java.util.function.Function;
 
 public class CRUDController {
+    private static final String BUSCA_TEXTO = "Palavras do nome";
+    private static final String BUSCA_NOME = "Nome começa com";
+    private static final String BUSCA_PRECO = "Preço entre";
+    private static final String BUSCA_ESTOQUE = "Estoque abaixo de";
+    // Uma busca ampla (ex.: prefixo de uma letra) mostra só os primeiros resultados
+    private static final int LIMITE_BUSCA = 1000;
+    private static final int PAGINA_TEXTO = 100;
+    // Busca ao digitar: só consulta depois de uma pausa na digitação
+    private static final Duration ESPERA_DIGITACAO = Duration.millis(250);
+
     @FXML
     private TableView<Produto> tableView;
     @FXML
@@ -27,19 +48,63 @@ public class CRUDController {
     private TextField txtPreco;
     @FXML
     private TextField txtEstoque;
+    @FXML
+    private Label lblTotal;
+    @FXML
+    private ProgressIndicator indicadorOcupado;
+    @FXML
+    private ChoiceBox<String> cbTipoBusca;
+    @FXML
+    private TextField txtBusca;
+    @FXML
+    private Button btnMaisResultados;
 
     @FXML
     private HBox header;
 
-    private ProdutoDAO produtoDAO;
-    private ObservableList<Produto> produtos;
+    // Mecanismo escolhido por -Dfxdemo.repositorio (SQLite por padrão)
+    private RepositorioProdutos repositorio;
+    private ServicoAssincrono servico;
+    private ListaProdutosBanco produtos;
+    private final ObservableList<Produto> resultados = FXCollections.observableArrayList();
+    // Busca exibida na tabela no lugar da lista completa (primeira página), ou null
+    private Function<CancelamentoConsulta, List<Produto>> buscaAtual;
+    private CancelamentoConsulta cancelamentoBusca;
+    private Task<List<Produto>> tarefaBusca;
+    // Busca por palavras exibida e última página carregada dela
+    private String textoBuscado;
+    private int paginaTexto;
+    private final PauseTransition pausaDigitacao = new PauseTransition(ESPERA_DIGITACAO);
     private Produto produtoSelecionado;
     private HeaderController headerController;
 
     @FXML
     public void initialize() {
-        produtoDAO = new ProdutoDAO();
-        produtos = FXCollections.observableArrayList();
+        repositorio = RepositorioProdutos.configurado();
+        servico = new ServicoAssincrono();
+        // Com a cópia mapeada do SQLite a tela abre sem consultar o banco; sem ela, páginas sob demanda
+        produtos = repositorio instanceof ProdutoDAO dao && dao.instantaneo() != null
+                ? new ListaProdutosInstantaneo(dao, servico)
+                : new ListaProdutosPaginada(repositorio, servico);
+        produtos.addListener((ListChangeListener<Produto>) c -> atualizarTotal());
+        resultados.addListener((ListChangeListener<Produto>) c -> atualizarTotal());
+        indicadorOcupado.visibleProperty().bind(servico.ocupadoProperty());
+
+        cbTipoBusca.getItems().setAll(BUSCA_TEXTO, BUSCA_NOME, BUSCA_PRECO, BUSCA_ESTOQUE);
+        cbTipoBusca.getSelectionModel().selectedItemProperty().addListener((obs, antigo, tipo) ->
+            txtBusca.setPromptText(BUSCA_TEXTO.equals(tipo) ? "palavras ou começo delas (busca ao digitar)"
+                : BUSCA_PRECO.equals(tipo) ? "mín-máx (ex: 10-20.50)"
+                : BUSCA_ESTOQUE.equals(tipo) ? "quantidade" : "início do nome"));
+        cbTipoBusca.getSelectionModel().select(BUSCA_TEXTO);
+        // A cada tecla, a consulta anterior é cancelada e a nova espera a pausa na digitação
+        pausaDigitacao.setOnFinished(e -> buscar());
+        txtBusca.textProperty().addListener((obs, antigo, texto) -> {
+            if (BUSCA_TEXTO.equals(cbTipoBusca.getValue())) {
+                cancelarBuscaEmAndamento();
+                pausaDigitacao.playFromStart();
+            }
+        });
+        btnMaisResultados.managedProperty().bind(btnMaisResultados.visibleProperty());
 
         colId.setCellValueFactory(new PropertyValueFactory<>("id"));
         colNome.setCellValueFactory(new PropertyValueFactory<>("nome"));
@@ -85,7 +150,6 @@ public class CRUDController {
             e.printStackTrace();
         }
 
-        carregarDados();
         limparCampos();
     }
 
@@ -95,10 +159,15 @@ public class CRUDController {
                 double preco = Double.parseDouble(txtPreco.getText());
                 int estoque = Integer.parseInt(txtEstoque.getText());
                 Produto produto = new Produto(txtNome.getText(), preco, estoque);
-                produtoDAO.inserir(produto);
-                carregarDados();
-                limparCampos();
-                mostrarAlerta("Sucesso", "Produto salvo com sucesso!", Alert.AlertType.INFORMATION);
+                servico.executar(() -> {
+                    repositorio.inserir(produto);
+                    return produto;
+                }, salvo -> {
+                    produtos.adicionar(salvo);
+                    refazerBusca();
+                    limparCampos();
+                    mostrarAlerta("Sucesso", "Produto salvo com sucesso!", Alert.AlertType.INFORMATION);
+                }, this::mostrarFalha);
             } catch (NumberFormatException e) {
                 mostrarAlerta("Erro", "Preço e Estoque devem ser números válidos!", Alert.AlertType.ERROR);
             }
@@ -108,19 +177,55 @@ public class CRUDController {
     public void editar() {
         if (produtoSelecionado != null && validarCampos()) {
             try {
-                produtoSelecionado.setNome(txtNome.getText());
-                produtoSelecionado.setPreco(Double.parseDouble(txtPreco.getText()));
-                produtoSelecionado.setEstoque(Integer.parseInt(txtEstoque.getText()));
-                produtoDAO.atualizar(produtoSelecionado);
-                carregarDados();
-                limparCampos();
-                mostrarAlerta("Sucesso", "Produto atualizado com sucesso!", Alert.AlertType.INFORMATION);
+                // A versão lida vai junto: se outra pessoa gravou depois, a edição é recusada
+                Produto produto = new Produto(produtoSelecionado.getId(), txtNome.getText(),
+                        Double.parseDouble(txtPreco.getText()), Integer.parseInt(txtEstoque.getText()),
+                        produtoSelecionado.getVersao());
+                servico.executar(() -> {
+                    ResultadoAtualizacao resultado = repositorio.atualizar(produto);
+                    Produto atual = resultado == ResultadoAtualizacao.CONFLITO
+                            ? repositorio.buscarPorId(produto.getId()) : produto;
+                    return new Edicao(resultado, atual);
+                }, this::concluirEdicao, this::mostrarFalha);
             } catch (NumberFormatException e) {
                 mostrarAlerta("Erro", "Preço e Estoque devem ser números válidos!", Alert.AlertType.ERROR);
             }
         }
     }
 
+    private record Edicao(ResultadoAtualizacao resultado, Produto produto) {
+    }
+
+    private void concluirEdicao(Edicao edicao) {
+        switch (edicao.resultado()) {
+            case ATUALIZADO -> {
+                produtos.substituir(edicao.produto());
+                refazerBusca();
+                limparCampos();
+                mostrarAlerta("Sucesso", "Produto atualizado com sucesso!", Alert.AlertType.INFORMATION);
+            }
+            case CONFLITO -> {
+                if (edicao.produto() == null) {
+                    produtos.recarregar(); // removido logo depois do conflito
+                } else {
+                    produtos.substituir(edicao.produto());
+                    produtoSelecionado = edicao.produto();
+                    preencherCampos(edicao.produto());
+                }
+                refazerBusca();
+                mostrarAlerta("Conflito", "O produto foi alterado por outra pessoa depois de carregado. "
+                        + "Os dados atuais foram recarregados; revise e edite novamente.", Alert.AlertType.WARNING);
+            }
+            case REMOVIDO -> {
+                produtos.remover(edicao.produto().getId());
+                refazerBusca();
+                limparCampos();
+                mostrarAlerta("Conflito", "O produto foi removido por outra pessoa.", Alert.AlertType.WARNING);
+            }
+            case FALHA -> mostrarAlerta("Erro", "Não foi possível atualizar o produto.", Alert.AlertType.ERROR);
+        }
+    }
+
     public void deletar() {
         if (produtoSelecionado != null) {
             Alert confirmacao = new Alert(Alert.AlertType.CONFIRMATION);
@@ -130,10 +235,16 @@ public class CRUDController {
 
             confirmacao.showAndWait().ifPresent(response -> {
                 if (response == ButtonType.OK) {
-                    produtoDAO.deletar(produtoSelecionado.getId());
-                    carregarDados();
-                    limparCampos();
-                    mostrarAlerta("Sucesso", "Produto deletado com sucesso!", Alert.AlertType.INFORMATION);
+                    int id = produtoSelecionado.getId();
+                    servico.executar(() -> {
+                        repositorio.deletar(id);
+                        return id;
+                    }, deletado -> {
+                        produtos.remover(deletado);
+                        refazerBusca();
+                        limparCampos();
+                        mostrarAlerta("Sucesso", "Produto deletado com sucesso!", Alert.AlertType.INFORMATION);
+                    }, this::mostrarFalha);
                 }
             });
         }
@@ -144,9 +255,124 @@ public class CRUDController {
         tableView.getSelectionModel().clearSelection();
     }
 
+    public void atualizarLista() {
+        carregarDados();
+        refazerBusca();
+    }
+
+    @FXML
+    private void buscar() {
+        pausaDigitacao.stop();
+        String texto = txtBusca.getText().trim();
+        if (texto.isEmpty()) {
+            limparBusca();
+            return;
+        }
+        Function<CancelamentoConsulta, List<Produto>> busca;
+        try {
+            busca = switch (cbTipoBusca.getValue()) {
+                case BUSCA_TEXTO -> c -> repositorio.buscarTexto(texto, 0, PAGINA_TEXTO, c);
+                case BUSCA_PRECO -> {
+                    String[] faixa = texto.split("\\s*-\\s*", 2);
+                    double minimo = Double.parseDouble(faixa[0]);
+                    double maximo = faixa.length > 1 ? Double.parseDouble(faixa[1]) : minimo;
+                    yield c -> repositorio.buscarPorFaixaDePreco(minimo, maximo, LIMITE_BUSCA);
+                }
+                case BUSCA_ESTOQUE -> {
+                    int quantidade = Integer.parseInt(texto);
+                    yield c -> repositorio.buscarEstoqueAbaixoDe(quantidade, LIMITE_BUSCA);
+                }
+                default -> c -> repositorio.buscarPorNomePrefixo(texto, LIMITE_BUSCA);
+            };
+        } catch (NumberFormatException e) {
+            mostrarAlerta("Erro", "Informe um número (ou uma faixa mín-máx) para buscar!", Alert.AlertType.ERROR);
+            return;
+        }
+        textoBuscado = BUSCA_TEXTO.equals(cbTipoBusca.getValue()) ? texto : null;
+        paginaTexto = 0;
+        buscaAtual = busca;
+        executarBusca(busca, false);
+    }
+
+    @FXML
+    private void maisResultados() {
+        if (textoBuscado == null) {
+            return;
+        }
+        String texto = textoBuscado;
+        int pagina = ++paginaTexto;
+        executarBusca(c -> repositorio.buscarTexto(texto, pagina, PAGINA_TEXTO, c), true);
+    }
+
+    @FXML
+    private void limparBusca() {
+        cancelarBuscaEmAndamento();
+        buscaAtual = null;
+        textoBuscado = null;
+        txtBusca.clear();
+        pausaDigitacao.stop();
+        resultados.clear();
+        btnMaisResultados.setVisible(false);
+        tableView.setItems(produtos);
+        atualizarTotal();
+    }
+
+    private void executarBusca(Function<CancelamentoConsulta, List<Produto>> busca, boolean acrescentar) {
+        cancelarBuscaEmAndamento();
+        CancelamentoConsulta cancelamento = new CancelamentoConsulta();
+        cancelamentoBusca = cancelamento;
+        tarefaBusca = servico.executarEmSegundoPlano(() -> busca.apply(cancelamento), lista -> {
+            if (cancelamentoBusca != cancelamento) {
+                return; // outra busca (ou limpeza) veio depois
+            }
+            cancelamentoBusca = null;
+            tarefaBusca = null;
+            if (acrescentar) {
+                resultados.addAll(lista);
+            } else {
+                resultados.setAll(lista);
+            }
+            btnMaisResultados.setVisible(textoBuscado != null && lista.size() == PAGINA_TEXTO);
+            tableView.setItems(resultados);
+        }, erro -> {
+            if (cancelamentoBusca == cancelamento) {
+                mostrarFalha(erro);
+            }
+        });
+    }
+
+    // Interrompe a consulta no SQLite e descarta o resultado que ainda viria
+    private void cancelarBuscaEmAndamento() {
+        if (cancelamentoBusca != null) {
+            cancelamentoBusca.cancelar();
+            cancelamentoBusca = null;
+        }
+        if (tarefaBusca != null) {
+            tarefaBusca.cancel(false);
+            tarefaBusca = null;
+        }
+    }
+
+    // Depois de uma alteração, os resultados exibidos podem ter mudado
+    private void refazerBusca() {
+        if (buscaAtual != null) {
+            paginaTexto = 0;
+            executarBusca(buscaAtual, false);
+        }
+    }
+
+    private void atualizarTotal() {
+        if (buscaAtual == null) {
+            lblTotal.setText(produtos.size() + " produto(s)");
+        } else if (resultados.size() >= LIMITE_BUSCA) {
+            lblTotal.setText("primeiros " + LIMITE_BUSCA + " resultados");
+        } else {
+            lblTotal.setText(resultados.size() + " resultado(s)");
+        }
+    }
+
     private void carregarDados() {
-        produtos.clear();
-        produtos.addAll(produtoDAO.listarTodos());
+        produtos.recarregar();
     }
 
     private void preencherCampos(Produto produto) {
@@ -201,6 +427,10 @@ public class CRUDController {
         return true;
     }
 
+    private void mostrarFalha(Throwable erro) {
+        mostrarAlerta("Erro", "Falha ao acessar o banco: " + erro.getMessage(), Alert.AlertType.ERROR);
+    }
+
     private void mostrarAlerta(String titulo, String mensagem, Alert.AlertType tipo) {
         Alert alert = new Alert(tipo);
         alert.setTitle(titulo);
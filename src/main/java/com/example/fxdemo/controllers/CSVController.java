@@ -1,23 +1,33 @@
 package com.example.fxdemo.controllers;
 
+import com.example.fxdemo.csv.ImportadorCSV;
 import com.example.fxdemo.dao.CSVProdutoDAO;
+import com.example.fxdemo.dao.CancelamentoConsulta;
 import com.example.fxdemo.model.Produto;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import com.example.fxdemo.service.ServicoAssincrono;
+import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.FileChooser;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class CSVController {
+    // Capacidade da prévia da importação: memória fixa, qualquer que seja o tamanho do arquivo
+    private static final int LINHAS_PREVIA = 1000;
+
+    @FXML
+    private ListView<String> listaPrevia;
     @FXML
-    private TextArea txtAreaCSV;
+    private Label lblContagem;
+    @FXML
+    private Label lblTotais;
     @FXML
     private Button btnCarregarCSV;
     @FXML
@@ -29,6 +39,14 @@ public class CSVController {
     @FXML
     private Button btnNovo;
     @FXML
+    private Button btnCancelar;
+    @FXML
+    private ProgressIndicator indicadorOcupado;
+    @FXML
+    private ProgressBar barraImportacao;
+    @FXML
+    private Label lblImportacao;
+    @FXML
     private TableView<Produto> tableView;
     @FXML
     private TableColumn<Produto, String> colNome;
@@ -37,6 +55,8 @@ public class CSVController {
     @FXML
     private TableColumn<Produto, Integer> colEstoque;
     @FXML
+    private TextField txtFiltro;
+    @FXML
     private TextField txtNome;
     @FXML
     private TextField txtPreco;
@@ -44,13 +64,28 @@ public class CSVController {
     private TextField txtEstoque;
 
     private CSVProdutoDAO csvProdutoDAO;
-    private ObservableList<Produto> produtos;
+    private ServicoAssincrono servico;
+    // A importação para pelo sinal, não por interrupção: ela termina gravando o CSV local
+    private CancelamentoConsulta cancelamentoImportacao;
+    private final ListaProdutosColunar produtos = new ListaProdutosColunar();
+    // Mostrada no lugar da lista completa enquanto há texto no filtro
+    private final ListaProdutosFiltrada filtrados = new ListaProdutosFiltrada(produtos);
+    // Incrementada a cada filtro pedido para descartar respostas de teclas anteriores
+    private int geracaoFiltro;
+    private final ListaCircular<String> previa = new ListaCircular<>(LINHAS_PREVIA);
     private Produto produtoSelecionado;
 
     @FXML
     public void initialize() {
         csvProdutoDAO = new CSVProdutoDAO();
-        produtos = FXCollections.observableArrayList();
+        servico = new ServicoAssincrono();
+        produtos.addListener((ListChangeListener<Produto>) mudanca -> mostrarTotais());
+        filtrados.addListener((ListChangeListener<Produto>) mudanca -> mostrarTotais());
+        // Cada tecla consulta o índice de nomes do DAO; a lista não é percorrida
+        txtFiltro.textProperty().addListener((obs, antigo, texto) -> filtrar());
+        listaPrevia.setItems(previa);
+        indicadorOcupado.visibleProperty().bind(servico.ocupadoProperty());
+        btnCancelar.visibleProperty().bind(servico.ocupadoProperty());
 
         colNome.setCellValueFactory(new PropertyValueFactory<>("nome"));
         colPreco.setCellValueFactory(new PropertyValueFactory<>("preco"));
@@ -93,10 +128,15 @@ public class CSVController {
                 double preco = Double.parseDouble(txtPreco.getText());
                 int estoque = Integer.parseInt(txtEstoque.getText());
                 Produto produto = new Produto(txtNome.getText(), preco, estoque);
-                csvProdutoDAO.inserir(produto);
-                carregarDados();
-                limparCampos();
-                mostrarAlerta("Sucesso", "Produto salvo no CSV com sucesso!", Alert.AlertType.INFORMATION);
+                servico.executar(() -> {
+                    csvProdutoDAO.inserir(produto);
+                    return produto;
+                }, salvo -> {
+                    produtos.add(salvo);
+                    refazerFiltro();
+                    limparCampos();
+                    mostrarAlerta("Sucesso", "Produto salvo no CSV com sucesso!", Alert.AlertType.INFORMATION);
+                }, this::mostrarFalha);
             } catch (NumberFormatException e) {
                 mostrarAlerta("Erro", "Preço e Estoque devem ser números válidos!", Alert.AlertType.ERROR);
             }
@@ -112,10 +152,30 @@ public class CSVController {
                 produtoNovo.setPreco(Double.parseDouble(txtPreco.getText()));
                 produtoNovo.setEstoque(Integer.parseInt(txtEstoque.getText()));
 
-                csvProdutoDAO.atualizar(produtoSelecionado, produtoNovo);
-                carregarDados();
-                limparCampos();
-                mostrarAlerta("Sucesso", "Produto atualizado no CSV com sucesso!", Alert.AlertType.INFORMATION);
+                Produto produtoAntigo = produtoSelecionado;
+                int indexSelecionado = linhaSelecionada();
+                servico.executar(() -> csvProdutoDAO.atualizar(produtoAntigo, produtoNovo), resultado -> {
+                    switch (resultado) {
+                        case ATUALIZADO -> {
+                            int index = indiceDe(produtoAntigo, indexSelecionado);
+                            if (index >= 0) {
+                                produtos.set(index, produtoNovo);
+                            }
+                            refazerFiltro();
+                            limparCampos();
+                            mostrarAlerta("Sucesso", "Produto atualizado no CSV com sucesso!", Alert.AlertType.INFORMATION);
+                        }
+                        case CONFLITO, REMOVIDO -> {
+                            // A lista exibida está desatualizada: recarrega antes de editar de novo
+                            limparCampos();
+                            carregarDados();
+                            mostrarAlerta("Conflito", "O produto foi alterado ou removido depois de carregado. "
+                                + "A lista foi recarregada; revise e edite novamente.", Alert.AlertType.WARNING);
+                        }
+                        case FALHA -> mostrarAlerta("Erro", "Não foi possível atualizar o produto no CSV.",
+                            Alert.AlertType.ERROR);
+                    }
+                }, this::mostrarFalha);
             } catch (NumberFormatException e) {
                 mostrarAlerta("Erro", "Preço e Estoque devem ser números válidos!", Alert.AlertType.ERROR);
             }
@@ -132,10 +192,19 @@ public class CSVController {
 
             confirmacao.showAndWait().ifPresent(response -> {
                 if (response == ButtonType.OK) {
-                    csvProdutoDAO.deletar(produtoSelecionado);
-                    carregarDados();
-                    limparCampos();
-                    mostrarAlerta("Sucesso", "Produto deletado do CSV com sucesso!", Alert.AlertType.INFORMATION);
+                    Produto produto = produtoSelecionado;
+                    int indexSelecionado = linhaSelecionada();
+                    servico.executar(() -> {
+                        csvProdutoDAO.deletar(produto);
+                        return produto;
+                    }, deletado -> {
+                        int index = indiceDe(deletado, indexSelecionado);
+                        if (index >= 0) {
+                            produtos.remove(index);
+                        }
+                        limparCampos();
+                        mostrarAlerta("Sucesso", "Produto deletado do CSV com sucesso!", Alert.AlertType.INFORMATION);
+                    }, this::mostrarFalha);
                 }
             });
         }
@@ -158,79 +227,146 @@ public class CSVController {
         File arquivo = fileChooser.showOpenDialog(btnCarregarCSV.getScene().getWindow());
 
         if (arquivo != null) {
-            try {
-                lerArquivoCSVExterno(arquivo);
+            barraImportacao.setProgress(0);
+            barraImportacao.setVisible(true);
+            lblImportacao.setText("Importando " + arquivo.getName() + "...");
+            lblContagem.setText("");
+            previa.limpar();
+            CancelamentoConsulta cancelamento = new CancelamentoConsulta();
+            cancelamentoImportacao = cancelamento;
+            servico.executar(() -> importarArquivoCSVExterno(arquivo, cancelamento), resultado -> {
+                barraImportacao.setVisible(false);
+                String resumo = String.format("%,d produtos em %.2f s (%,.0f linhas/s, %.1f MB/s)",
+                    resultado.produtos().size(), resultado.nanos() / 1e9,
+                    resultado.linhasPorSegundo(), resultado.mbPorSegundo());
+                lblImportacao.setText(resumo);
+                previa.acrescentar(List.of("--- " + arquivo.getName() + ": " + resumo + " ---"));
+                listaPrevia.scrollTo(previa.size() - 1);
+                carregarDados();
                 mostrarAlerta("Sucesso", "Arquivo CSV carregado com sucesso!", Alert.AlertType.INFORMATION);
-            } catch (IOException e) {
-                mostrarAlerta("Erro", "Erro ao ler arquivo: " + e.getMessage(), Alert.AlertType.ERROR);
-            }
+            }, erro -> {
+                barraImportacao.setVisible(false);
+                lblImportacao.setText("");
+                mostrarAlerta("Erro", "Erro ao ler arquivo: " + erro.getMessage(), Alert.AlertType.ERROR);
+            });
         }
     }
 
-    private void lerArquivoCSVExterno(File arquivo) throws IOException {
-        StringBuilder conteudo = new StringBuilder();
-        List<Produto> produtosExternos = csvProdutoDAO.listarTodos();
-
-        try (BufferedReader br = new BufferedReader(new FileReader(arquivo))) {
-            String linha;
-            boolean primeiraLinha = true;
+    @FXML
+    private void atualizarLista() {
+        carregarDados();
+    }
 
-            while ((linha = br.readLine()) != null) {
-                if (linha.trim().isEmpty()) {
-                    continue;
-                }
+    @FXML
+    private void cancelar() {
+        if (cancelamentoImportacao != null) {
+            cancelamentoImportacao.cancelar();
+            cancelamentoImportacao = null;
+        }
+        servico.cancelarTodas();
+        barraImportacao.setVisible(false);
+        lblImportacao.setText("");
+    }
 
-                String[] colunas = linha.split(",");
+    // Roda fora da thread da interface: importa o arquivo em paralelo e grava o CSV local
+    private ImportadorCSV.Resultado importarArquivoCSVExterno(File arquivo, CancelamentoConsulta cancelamento)
+            throws IOException {
+        // O progresso chega das threads do importador; só agenda uma atualização da tela por vez
+        AtomicReference<ImportadorCSV.Progresso> pendente = new AtomicReference<>();
+        return csvProdutoDAO.importar(arquivo.toPath(), cancelamento, progresso -> {
+            if (pendente.getAndSet(progresso) == null) {
+                Platform.runLater(() -> mostrarProgresso(pendente.getAndSet(null)));
+            }
+        }, trecho -> {
+            List<String> linhas = linhasDaPrevia(trecho);
+            Platform.runLater(() -> previa.acrescentar(linhas));
+        });
+    }
 
-                // Pular cabeçalho se existir
-                if (primeiraLinha && (colunas[0].trim().equalsIgnoreCase("nome") ||
-                    colunas[0].trim().equalsIgnoreCase("produto"))) {
-                    primeiraLinha = false;
-                    continue;
-                }
+    private void mostrarProgresso(ImportadorCSV.Progresso progresso) {
+        lblContagem.setText(String.format("%,d ok | %,d mal formatadas", progresso.validas(), progresso.invalidas()));
+        if (!barraImportacao.isVisible()) {
+            return; // importação já terminou ou foi cancelada
+        }
+        barraImportacao.setProgress(progresso.fracao());
+        lblImportacao.setText(String.format("%.1f de %.1f MB | %,.0f linhas/s | %.1f MB/s",
+            progresso.bytesLidos() / 1048576.0, progresso.bytesTotal() / 1048576.0,
+            progresso.linhasPorSegundo(), progresso.mbPorSegundo()));
+    }
 
-                primeiraLinha = false;
+    // A prévia só guarda as últimas linhas, então de cada parte só as últimas são formatadas
+    private static List<String> linhasDaPrevia(ImportadorCSV.Trecho trecho) {
+        List<String> linhas = new ArrayList<>();
+        List<Produto> importados = trecho.produtos();
+        for (int i = Math.max(0, importados.size() - LINHAS_PREVIA); i < importados.size(); i++) {
+            Produto produto = importados.get(i);
+            linhas.add(String.format("Nome: %-20s | Preço: R$ %-10.2f | Estoque: %d",
+                produto.getNome(), produto.getPreco(), produto.getEstoque()));
+        }
+        // As mal formatadas ficam por último para continuarem visíveis
+        List<ImportadorCSV.LinhaInvalida> invalidas = trecho.invalidas();
+        for (int i = Math.max(0, invalidas.size() - LINHAS_PREVIA); i < invalidas.size(); i++) {
+            ImportadorCSV.LinhaInvalida invalida = invalidas.get(i);
+            linhas.add("Linha " + invalida.numeroLinha() + " mal formatada: " + invalida.conteudo());
+        }
+        return linhas;
+    }
 
-                // Limpar espaços em branco
-                for (int i = 0; i < colunas.length; i++) {
-                    colunas[i] = colunas[i].trim();
-                }
+    private void carregarDados() {
+        servico.executar(csvProdutoDAO::listarColunas, colunas -> {
+            produtos.substituirTodos(colunas);
+            refazerFiltro();
+        }, this::mostrarFalha);
+    }
 
-                // Tentar criar produto e adicionar à lista
-                if (colunas.length >= 3) {
-                    try {
-                        String nome = colunas[0];
-                        double preco = Double.parseDouble(colunas[1]);
-                        int estoque = Integer.parseInt(colunas[2]);
-
-                        Produto produto = new Produto();
-                        produto.setNome(nome);
-                        produto.setPreco(preco);
-                        produto.setEstoque(estoque);
-                        produtosExternos.add(produto);
-
-                        // Formatar para exibição no TextArea
-                        String linhaFormatada = String.format("Nome: %-20s | Preço: R$ %-10.2f | Estoque: %d",
-                            nome, preco, estoque);
-                        conteudo.append(linhaFormatada).append("\n");
-
-                    } catch (NumberFormatException e) {
-                        // Ignora linhas mal formatadas
-                        conteudo.append("Linha mal formatada: ").append(linha).append("\n");
-                    }
-                }
+    private void filtrar() {
+        String texto = txtFiltro.getText();
+        int geracao = ++geracaoFiltro;
+        if (texto.isBlank()) {
+            tableView.setItems(produtos);
+            filtrados.limparFiltro();
+            mostrarTotais();
+            return;
+        }
+        servico.executarEmSegundoPlano(() -> csvProdutoDAO.buscarIdsPorNome(texto.strip()), ids -> {
+            if (geracao != geracaoFiltro) {
+                return; // o texto mudou enquanto a consulta rodava
             }
+            tableView.setItems(filtrados);
+            filtrados.filtrar(produtos.linhasDosIds(ids));
+            mostrarTotais();
+        }, this::mostrarFalha);
+    }
+
+    // Produtos novos ou renomeados podem entrar ou sair do filtro
+    private void refazerFiltro() {
+        if (!txtFiltro.getText().isBlank()) {
+            filtrar();
         }
+    }
 
-        txtAreaCSV.setText(conteudo.toString());
-        // Salva todos os produtos (incluindo os externos) no arquivo local
-        csvProdutoDAO.salvarTodosProdutos(produtosExternos);
-        carregarDados();
+    // Agregados varrem as colunas de inteiros, sem criar objetos
+    private void mostrarTotais() {
+        String totais = String.format("%,d produtos | %,d itens em estoque | R$ %,.2f em estoque",
+            produtos.size(), produtos.somaEstoque(), produtos.valorEmEstoqueCentavos() / 100.0);
+        if (tableView.getItems() == filtrados) {
+            totais += String.format(" | %,d no filtro", filtrados.size());
+        }
+        lblTotais.setText(totais);
     }
 
-    private void carregarDados() {
-        produtos.clear();
-        produtos.addAll(csvProdutoDAO.listarTodos());
+    // Índice na lista completa da linha selecionada (a tabela pode estar mostrando só os filtrados)
+    private int linhaSelecionada() {
+        int index = tableView.getSelectionModel().getSelectedIndex();
+        return index >= 0 && tableView.getItems() == filtrados ? filtrados.getSourceIndex(index) : index;
+    }
+
+    // Usa a posição selecionada quando ela ainda aponta para o produto, evitando varrer a lista
+    private int indiceDe(Produto produto, int dica) {
+        if (dica >= 0 && dica < produtos.size() && produtos.get(dica) == produto) {
+            return dica;
+        }
+        return produtos.indexOf(produto);
     }
 
     private void preencherCampos(Produto produto) {
@@ -285,6 +421,10 @@ public class CSVController {
         return true;
     }
 
+    private void mostrarFalha(Throwable erro) {
+        mostrarAlerta("Erro", "Falha ao acessar o CSV: " + erro.getMessage(), Alert.AlertType.ERROR);
+    }
+
     private void mostrarAlerta(String titulo, String mensagem, Alert.AlertType tipo) {
         Alert alert = new Alert(tipo);
         alert.setTitle(titulo);
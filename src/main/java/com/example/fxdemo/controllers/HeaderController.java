@@ -12,6 +12,8 @@ public class HeaderController {
     private Button btnDeletar;
     @FXML
     private Button btnNovo;
+    @FXML
+    private Button btnAtualizar;
 
     private CRUDController crudController;
 
@@ -26,6 +28,7 @@ public class HeaderController {
             btnEditar.setOnAction(e -> crudController.editar());
             btnDeletar.setOnAction(e -> crudController.deletar());
             btnNovo.setOnAction(e -> crudController.novo());
+            btnAtualizar.setOnAction(e -> crudController.atualizarLista());
         }
     }
 
@@ -0,0 +1,85 @@
+package com.example.fxdemo.controllers;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Lista observável de capacidade fixa: ao passar do limite, os itens mais antigos saem do começo.
+ * Serve de modelo para um ListView que acompanha um fluxo sem crescer indefinidamente.
+ * Deve ser usada só na thread da interface.
+ */
+class ListaCircular<E> extends ObservableListBase<E> {
+    private final Object[] itens;
+    private int inicio;
+    private int tamanho;
+
+    ListaCircular(int capacidade) {
+        this.itens = new Object[capacidade];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (index < 0 || index >= tamanho) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return (E) itens[(inicio + index) % itens.length];
+    }
+
+    @Override
+    public int size() {
+        return tamanho;
+    }
+
+    /**
+     * Acrescenta os itens no fim, descartando os mais antigos, em uma única notificação.
+     */
+    void acrescentar(Collection<? extends E> novos) {
+        if (novos.isEmpty()) {
+            return;
+        }
+        // Dos novos, só os últimos cabem
+        List<E> entram = new ArrayList<>(novos);
+        if (entram.size() > itens.length) {
+            entram = entram.subList(entram.size() - itens.length, entram.size());
+        }
+        int saem = Math.max(0, tamanho + entram.size() - itens.length);
+
+        beginChange();
+        if (saem > 0) {
+            List<E> removidos = new ArrayList<>(saem);
+            for (int i = 0; i < saem; i++) {
+                removidos.add(get(i));
+            }
+            for (int i = 0; i < saem; i++) {
+                itens[(inicio + i) % itens.length] = null;
+            }
+            inicio = (inicio + saem) % itens.length;
+            tamanho -= saem;
+            nextRemove(0, removidos);
+        }
+        for (E item : entram) {
+            itens[(inicio + tamanho) % itens.length] = item;
+            tamanho++;
+        }
+        nextAdd(tamanho - entram.size(), tamanho);
+        endChange();
+    }
+
+    void limpar() {
+        if (tamanho == 0) {
+            return;
+        }
+        List<E> removidos = new ArrayList<>(this);
+        Arrays.fill(itens, null);
+        inicio = 0;
+        tamanho = 0;
+        beginChange();
+        nextRemove(0, removidos);
+        endChange();
+    }
+}
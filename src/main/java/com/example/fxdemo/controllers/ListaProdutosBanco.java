@@ -0,0 +1,31 @@
+package com.example.fxdemo.controllers;
+
+import com.example.fxdemo.model.Produto;
+import javafx.collections.ObservableListBase;
+
+/**
+ * Lista somente leitura da tabela de produtos do banco para o TableView. As escritas vão ao
+ * {@link com.example.fxdemo.dao.RepositorioProdutos}; depois delas, a tela avisa a lista pelos métodos
+ * abaixo para que ela atualize só a linha afetada.
+ */
+abstract class ListaProdutosBanco extends ObservableListBase<Produto> {
+    /**
+     * Descarta o que estiver em memória e relê a tabela, avisando a tabela da troca completa.
+     */
+    abstract void recarregar();
+
+    /**
+     * Acrescenta um produto recém-inserido. Ids são crescentes, então ele entra no fim da lista.
+     */
+    abstract void adicionar(Produto produto);
+
+    /**
+     * Troca no lugar a linha com o mesmo id.
+     */
+    abstract void substituir(Produto produto);
+
+    /**
+     * Remove a linha com o id informado.
+     */
+    abstract void remover(int id);
+}
@@ -0,0 +1,168 @@
+package com.example.fxdemo.controllers;
+
+import com.example.fxdemo.model.Produto;
+import com.example.fxdemo.model.ProdutosColunares;
+import javafx.collections.ObservableListBase;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lista observável sobre {@link ProdutosColunares}: a tabela só cria objetos {@link Produto}
+ * para as linhas que pede (as visíveis). Enquanto alguém referencia um deles (as células da
+ * tabela, o produto selecionado), a mesma linha devolve o mesmo objeto; os que ninguém mais
+ * referencia são liberados pelo coletor, então rolar por todo o arquivo não deixa um objeto
+ * por linha no heap. Produtos são comparados pelo id em {@link #indexOf}. Os objetos são só
+ * leitura na prática: alterações passam por {@link #set}, {@link #add} e {@link #remove}.
+ * Deve ser usada só na thread da interface.
+ */
+class ListaProdutosColunar extends ObservableListBase<Produto> {
+    private ProdutosColunares colunas = new ProdutosColunares();
+    // Objetos já entregues, pelo id do produto (estável quando linhas são removidas)
+    private Map<Integer, Visao> visoes = new HashMap<>();
+    private final ReferenceQueue<Produto> liberadas = new ReferenceQueue<>();
+
+    private static final class Visao extends WeakReference<Produto> {
+        final int id;
+
+        Visao(Produto produto, ReferenceQueue<Produto> fila) {
+            super(produto, fila);
+            this.id = produto.getId();
+        }
+    }
+
+    @Override
+    public Produto get(int index) {
+        if (index < 0 || index >= colunas.tamanho()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        descartarLiberadas();
+        Produto visao = visao(visoes, colunas.getId(index));
+        if (visao == null) {
+            visao = colunas.produto(index);
+            guardar(visao);
+        }
+        return visao;
+    }
+
+    @Override
+    public int size() {
+        return colunas.tamanho();
+    }
+
+    @Override
+    public Produto set(int index, Produto produto) {
+        Produto anterior = get(index);
+        if (produto.getId() != colunas.getId(index)) {
+            visoes.remove(colunas.getId(index));
+            colunas.definirId(index, produto.getId());
+        }
+        colunas.definir(index, produto.getNome(), ProdutosColunares.centavos(produto.getPreco()), produto.getEstoque());
+        colunas.definirVersao(index, produto.getVersao());
+        guardar(produto);
+        beginChange();
+        nextSet(index, anterior);
+        endChange();
+        return anterior;
+    }
+
+    @Override
+    public void add(int index, Produto produto) {
+        if (index != colunas.tamanho()) {
+            throw new UnsupportedOperationException("Só é possível acrescentar no fim");
+        }
+        int linha = colunas.adicionar(produto);
+        guardar(produto);
+        beginChange();
+        nextAdd(linha, linha + 1);
+        endChange();
+    }
+
+    @Override
+    public Produto remove(int index) {
+        Produto removido = get(index);
+        visoes.remove(colunas.getId(index));
+        colunas.remover(index);
+        beginChange();
+        nextRemove(index, removido);
+        endChange();
+        return removido;
+    }
+
+    /**
+     * Linha do produto com o mesmo id, mesmo que o objeto tenha sido liberado e
+     * a linha devolva outro.
+     */
+    @Override
+    public int indexOf(Object objeto) {
+        if (!(objeto instanceof Produto produto)) {
+            return -1;
+        }
+        int linha = colunas.linhaDoId(produto.getId());
+        return linha >= 0 ? linha : -1;
+    }
+
+    /**
+     * Troca todo o conteúdo em uma única notificação de substituição. Os removidos são uma
+     * visão do conteúdo antigo: nenhum objeto é criado para linhas que ninguém lê.
+     */
+    void substituirTodos(ProdutosColunares novas) {
+        List<Produto> removidos = conteudoAntigo(colunas, visoes);
+        colunas = novas;
+        visoes = new HashMap<>();
+        if (removidos.isEmpty() && novas.tamanho() == 0) {
+            return;
+        }
+        fireChange(new TrocaCompleta<>(this, novas.tamanho(), removidos));
+    }
+
+    /**
+     * Linhas (em ordem crescente) dos produtos com esses ids, também em ordem crescente.
+     */
+    int[] linhasDosIds(int[] idsOrdenados) {
+        return colunas.linhasDosIds(idsOrdenados);
+    }
+
+    long somaEstoque() {
+        return colunas.somaEstoque();
+    }
+
+    long valorEmEstoqueCentavos() {
+        return colunas.valorEmEstoqueCentavos();
+    }
+
+    private void guardar(Produto produto) {
+        visoes.put(produto.getId(), new Visao(produto, liberadas));
+    }
+
+    // Tira do mapa as entradas cujos objetos o coletor já liberou
+    private void descartarLiberadas() {
+        for (Visao liberada; (liberada = (Visao) liberadas.poll()) != null; ) {
+            visoes.remove(liberada.id, liberada);
+        }
+    }
+
+    private static Produto visao(Map<Integer, Visao> visoes, int id) {
+        Visao visao = visoes.get(id);
+        return visao != null ? visao.get() : null;
+    }
+
+    private static List<Produto> conteudoAntigo(ProdutosColunares colunas, Map<Integer, Visao> visoes) {
+        return new AbstractList<>() {
+            @Override
+            public Produto get(int index) {
+                Produto visao = visao(visoes, colunas.getId(index));
+                return visao != null ? visao : colunas.produto(index);
+            }
+
+            @Override
+            public int size() {
+                return colunas.tamanho();
+            }
+        };
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.fxdemo.controllers;
+
+import com.example.fxdemo.model.Produto;
+import javafx.collections.ListChangeListener;
+import javafx.collections.transformation.TransformationList;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Visão filtrada de uma {@link ListaProdutosColunar}: só as linhas informadas, em ordem
+ * crescente. Faz o papel de um {@code FilteredList}, mas quem escolhe as linhas é o índice de
+ * nomes, então trocar o filtro não avalia um predicado em cada produto (nem cria um objeto
+ * por linha da lista completa).
+ * <p>
+ * Alterações e remoções na lista completa são repassadas; produtos acrescentados só aparecem
+ * quando o filtro é refeito. Se a lista completa for trocada inteira, o filtro fica vazio.
+ */
+class ListaProdutosFiltrada extends TransformationList<Produto, Produto> {
+    private int[] linhas = new int[0];
+    private int tamanho;
+
+    ListaProdutosFiltrada(ListaProdutosColunar fonte) {
+        super(fonte);
+    }
+
+    @Override
+    public Produto get(int index) {
+        if (index < 0 || index >= tamanho) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return getSource().get(linhas[index]);
+    }
+
+    @Override
+    public int size() {
+        return tamanho;
+    }
+
+    @Override
+    public int getSourceIndex(int index) {
+        if (index < 0 || index >= tamanho) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return linhas[index];
+    }
+
+    @Override
+    public int getViewIndex(int index) {
+        int posicao = Arrays.binarySearch(linhas, 0, tamanho, index);
+        return posicao >= 0 ? posicao : -1;
+    }
+
+    /**
+     * Passa a mostrar só as linhas informadas (índices da lista completa, em ordem crescente).
+     */
+    void filtrar(int[] linhasOrdenadas) {
+        trocar(linhasOrdenadas, visao(getSource(), linhas, tamanho));
+    }
+
+    void limparFiltro() {
+        filtrar(new int[0]);
+    }
+
+    @Override
+    protected void sourceChanged(ListChangeListener.Change<? extends Produto> mudanca) {
+        while (mudanca.next()) {
+            if (!simples(mudanca)) {
+                // Troca completa (recarga do arquivo): as linhas antigas não valem mais
+                trocar(new int[0], visao(mudanca.getRemoved(), linhas, tamanho));
+                return;
+            }
+        }
+        mudanca.reset();
+
+        beginChange();
+        while (mudanca.next()) {
+            int linha = mudanca.getFrom();
+            int posicao = Arrays.binarySearch(linhas, 0, tamanho, linha);
+            if (mudanca.wasReplaced()) {
+                if (posicao >= 0) {
+                    nextSet(posicao, mudanca.getRemoved().get(0));
+                }
+            } else if (mudanca.wasRemoved()) {
+                if (posicao >= 0) {
+                    System.arraycopy(linhas, posicao + 1, linhas, posicao, tamanho - posicao - 1);
+                    tamanho--;
+                    nextRemove(posicao, mudanca.getRemoved().get(0));
+                } else {
+                    posicao = -posicao - 1;
+                }
+                deslocar(posicao, -1);
+            } else if (mudanca.wasAdded()) {
+                deslocar(posicao >= 0 ? posicao : -posicao - 1, mudanca.getAddedSize());
+            }
+        }
+        endChange();
+    }
+
+    // Uma linha alterada ou removida, ou linhas acrescentadas: o que a lista completa faz no dia a dia
+    private static boolean simples(ListChangeListener.Change<?> mudanca) {
+        if (mudanca.wasPermutated() || mudanca.wasUpdated()) {
+            return false;
+        }
+        if (mudanca.wasReplaced()) {
+            return mudanca.getRemovedSize() == 1 && mudanca.getAddedSize() == 1;
+        }
+        return !mudanca.wasRemoved() || mudanca.getRemovedSize() == 1;
+    }
+
+    private void deslocar(int aPartirDe, int quanto) {
+        for (int i = aPartirDe; i < tamanho; i++) {
+            linhas[i] += quanto;
+        }
+    }
+
+    private void trocar(int[] novas, List<Produto> removidos) {
+        boolean vazia = tamanho == 0;
+        linhas = novas;
+        tamanho = novas.length;
+        if (vazia && tamanho == 0) {
+            return;
+        }
+        fireChange(new TrocaCompleta<>(this, tamanho, removidos));
+    }
+
+    // Os removidos lidos sob demanda, pelas linhas antigas
+    private static List<Produto> visao(List<? extends Produto> conteudo, int[] linhas, int tamanho) {
+        return new AbstractList<>() {
+            @Override
+            public Produto get(int index) {
+                return conteudo.get(linhas[index]);
+            }
+
+            @Override
+            public int size() {
+                return tamanho;
+            }
+        };
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.fxdemo.controllers;
+
+import com.example.fxdemo.dao.InstantaneoProdutos;
+import com.example.fxdemo.dao.ProdutoDAO;
+import com.example.fxdemo.model.Produto;
+import com.example.fxdemo.service.ServicoAssincrono;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Lista para o TableView servida pela cópia mapeada da tabela ({@link InstantaneoProdutos}):
+ * o tamanho sai do cabeçalho do arquivo e cada linha é lida do arquivo quando a tabela a pede,
+ * então a tela abre sem consultar o banco nem criar um objeto por produto.
+ * <p>
+ * Os produtos exibidos ficam em um cache pequeno, indexado pelo id, para que a mesma linha
+ * devolva o mesmo objeto enquanto estiver na tela. Em segundo plano, a cópia é conferida com o
+ * banco e reconstruída se preciso; até lá (ou se a cópia não existir) a lista fica vazia.
+ */
+class ListaProdutosInstantaneo extends ListaProdutosBanco {
+    // Potência de 2, bem maior que o número de linhas visíveis
+    private static final int TAMANHO_CACHE = 1024;
+
+    private final ProdutoDAO dao;
+    private final ServicoAssincrono servico;
+    private final InstantaneoProdutos instantaneo;
+    private final Produto[] cache = new Produto[TAMANHO_CACHE];
+    private int tamanho;
+    // Incrementada a cada recarga para descartar conferências pedidas antes dela
+    private int geracao;
+
+    ListaProdutosInstantaneo(ProdutoDAO dao, ServicoAssincrono servico) {
+        this.dao = dao;
+        this.servico = servico;
+        this.instantaneo = dao.instantaneo();
+        tamanho = instantaneo.isValido() ? instantaneo.contagem() : 0;
+        recarregar();
+    }
+
+    @Override
+    public Produto get(int index) {
+        if (index < 0 || index >= tamanho) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        if (!instantaneo.isValido()) {
+            return null;
+        }
+        try {
+            int id = instantaneo.id(index);
+            Produto produto = cache[id & (TAMANHO_CACHE - 1)];
+            if (produto == null || produto.getId() != id) {
+                produto = instantaneo.produto(index);
+                cache[produto.getId() & (TAMANHO_CACHE - 1)] = produto;
+            }
+            return produto;
+        } catch (IndexOutOfBoundsException e) {
+            // A cópia está um passo à frente da lista: remoção ainda não avisada
+            return null;
+        }
+    }
+
+    @Override
+    public int size() {
+        return tamanho;
+    }
+
+    /**
+     * Confere a cópia com o banco em segundo plano (reconstruindo-a se preciso) e troca todo
+     * o conteúdo se ela mudou.
+     */
+    @Override
+    void recarregar() {
+        int geracaoDaCarga = ++geracao;
+        servico.executarEmSegundoPlano(dao::sincronizarInstantaneo, reconstruida -> {
+            if (geracaoDaCarga != geracao) {
+                return;
+            }
+            int novoTamanho = instantaneo.isValido() ? instantaneo.contagem() : 0;
+            if (!reconstruida && novoTamanho == tamanho) {
+                return;
+            }
+            int tamanhoAnterior = tamanho;
+            Arrays.fill(cache, null);
+            tamanho = novoTamanho;
+
+            beginChange();
+            if (tamanhoAnterior > 0) {
+                nextRemove(0, Collections.nCopies(tamanhoAnterior, (Produto) null));
+            }
+            if (tamanho > 0) {
+                nextAdd(0, tamanho);
+            }
+            endChange();
+        }, erro -> System.err.println("Erro ao conferir cópia dos produtos: " + erro.getMessage()));
+    }
+
+    @Override
+    void adicionar(Produto produto) {
+        if (!instantaneo.isValido()) {
+            recarregar();
+            return;
+        }
+        int index = tamanho++;
+        cache[produto.getId() & (TAMANHO_CACHE - 1)] = produto;
+        beginChange();
+        nextAdd(index, index + 1);
+        endChange();
+    }
+
+    @Override
+    void substituir(Produto produto) {
+        if (!instantaneo.isValido()) {
+            recarregar();
+            return;
+        }
+        int index = instantaneo.buscarId(produto.getId());
+        if (index < 0 || index >= tamanho) {
+            return;
+        }
+        int posicaoCache = produto.getId() & (TAMANHO_CACHE - 1);
+        Produto antigo = cache[posicaoCache];
+        cache[posicaoCache] = produto;
+        beginChange();
+        nextSet(index, antigo != null && antigo.getId() == produto.getId() ? antigo : null);
+        endChange();
+    }
+
+    /**
+     * O DAO já tirou o id da cópia; a posição onde ele entraria é a que ele ocupava.
+     */
+    @Override
+    void remover(int id) {
+        int index = instantaneo.isValido() ? instantaneo.buscarId(id) : 0;
+        if (index >= 0 || tamanho == 0) {
+            recarregar(); // a cópia não acompanhou a remoção
+            return;
+        }
+        index = Math.min(-index - 1, tamanho - 1);
+        int posicaoCache = id & (TAMANHO_CACHE - 1);
+        Produto removido = cache[posicaoCache];
+        if (removido != null && removido.getId() == id) {
+            cache[posicaoCache] = null;
+        } else {
+            removido = null;
+        }
+        tamanho--;
+        beginChange();
+        nextRemove(index, removido);
+        endChange();
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.fxdemo.controllers;
+
+import com.example.fxdemo.dao.RepositorioProdutos;
+import com.example.fxdemo.model.Produto;
+import com.example.fxdemo.service.ServicoAssincrono;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lista somente leitura para o TableView que carrega os produtos sob demanda, em páginas
+ * por chave (id), conforme as linhas ficam visíveis. Só as páginas usadas mais recentemente
+ * ficam em memória.
+ * <p>
+ * As consultas rodam fora da thread da interface: uma linha ainda não carregada aparece
+ * vazia ({@code null}) e é preenchida quando a página chega.
+ */
+class ListaProdutosPaginada extends ListaProdutosBanco {
+    static final int TAMANHO_PAGINA = 200;
+    private static final int MAX_PAGINAS_EM_MEMORIA = 10;
+
+    private final RepositorioProdutos dao;
+    private final ServicoAssincrono servico;
+    private final Map<Integer, List<Produto>> paginas =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, List<Produto>> maisAntiga) {
+                    return size() > MAX_PAGINAS_EM_MEMORIA;
+                }
+            };
+    // Último id de cada página já vista: ponto de partida da página seguinte
+    private final Map<Integer, Integer> ultimoIdDaPagina = new HashMap<>();
+    private final Set<Integer> carregando = new HashSet<>();
+    private int tamanho;
+    // Incrementada a cada recarga para descartar páginas pedidas antes dela
+    private int geracao;
+
+    ListaProdutosPaginada(RepositorioProdutos dao, ServicoAssincrono servico) {
+        this.dao = dao;
+        this.servico = servico;
+        recarregar();
+    }
+
+    @Override
+    public Produto get(int index) {
+        if (index < 0 || index >= tamanho) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        int numero = index / TAMANHO_PAGINA;
+        List<Produto> pagina = paginas.get(numero);
+        if (pagina == null) {
+            carregarPagina(numero);
+            return null;
+        }
+        int posicao = index % TAMANHO_PAGINA;
+        if (posicao >= pagina.size()) {
+            // Página encurtada por uma remoção (ou tabela alterada por fora): busca de novo
+            carregarPagina(numero);
+            return null;
+        }
+        return pagina.get(posicao);
+    }
+
+    @Override
+    public int size() {
+        return tamanho;
+    }
+
+    /**
+     * Descarta as páginas em memória e reconta as linhas, avisando a tabela da troca completa.
+     */
+    @Override
+    void recarregar() {
+        int geracaoDaCarga = ++geracao;
+        servico.executarEmSegundoPlano(dao::contar, novoTamanho -> {
+            if (geracaoDaCarga != geracao) {
+                return;
+            }
+            int tamanhoAnterior = tamanho;
+            paginas.clear();
+            ultimoIdDaPagina.clear();
+            carregando.clear();
+            tamanho = novoTamanho;
+
+            beginChange();
+            if (tamanhoAnterior > 0) {
+                nextRemove(0, Collections.nCopies(tamanhoAnterior, (Produto) null));
+            }
+            if (tamanho > 0) {
+                nextAdd(0, tamanho);
+            }
+            endChange();
+        }, erro -> System.err.println("Erro ao contar produtos: " + erro.getMessage()));
+    }
+
+    @Override
+    void adicionar(Produto produto) {
+        int index = tamanho++;
+        int numero = index / TAMANHO_PAGINA;
+        List<Produto> pagina = paginas.get(numero);
+        if (pagina != null && pagina.size() == index % TAMANHO_PAGINA) {
+            pagina.add(produto);
+            ultimoIdDaPagina.put(numero, produto.getId());
+        }
+        beginChange();
+        nextAdd(index, index + 1);
+        endChange();
+    }
+
+    /**
+     * Troca no lugar a linha com o mesmo id, se ela estiver em memória.
+     */
+    @Override
+    void substituir(Produto produto) {
+        for (Map.Entry<Integer, List<Produto>> entrada : paginas.entrySet()) {
+            List<Produto> pagina = entrada.getValue();
+            int posicao = buscarPorId(pagina, produto.getId());
+            if (posicao >= 0) {
+                Produto antigo = pagina.set(posicao, produto);
+                beginChange();
+                nextSet(entrada.getKey() * TAMANHO_PAGINA + posicao, antigo);
+                endChange();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Remove a linha com o id informado. As páginas seguintes deslocam uma posição,
+     * então só elas são descartadas e recarregadas sob demanda.
+     */
+    @Override
+    void remover(int id) {
+        for (Map.Entry<Integer, List<Produto>> entrada : paginas.entrySet()) {
+            List<Produto> pagina = entrada.getValue();
+            int posicao = buscarPorId(pagina, id);
+            if (posicao >= 0) {
+                int numero = entrada.getKey();
+                Produto removido = pagina.remove(posicao);
+                paginas.keySet().removeIf(n -> n > numero);
+                ultimoIdDaPagina.keySet().removeIf(n -> n >= numero);
+                // Cargas em andamento foram consultadas antes da remoção
+                carregando.clear();
+                geracao++;
+                tamanho--;
+
+                beginChange();
+                nextRemove(numero * TAMANHO_PAGINA + posicao, removido);
+                endChange();
+                return;
+            }
+        }
+        // Fora das páginas em memória: não há como saber a posição sem consultar
+        recarregar();
+    }
+
+    // As páginas vêm ordenadas por id
+    private static int buscarPorId(List<Produto> pagina, int id) {
+        int baixo = 0;
+        int alto = pagina.size() - 1;
+        while (baixo <= alto) {
+            int meio = (baixo + alto) >>> 1;
+            int idMeio = pagina.get(meio).getId();
+            if (idMeio < id) {
+                baixo = meio + 1;
+            } else if (idMeio > id) {
+                alto = meio - 1;
+            } else {
+                return meio;
+            }
+        }
+        return -1;
+    }
+
+    private void carregarPagina(int numero) {
+        if (!carregando.add(numero)) {
+            return;
+        }
+        Integer anterior = numero == 0 ? Integer.valueOf(0) : ultimoIdDaPagina.get(numero - 1);
+        int geracaoDaCarga = geracao;
+
+        servico.executarEmSegundoPlano(() -> {
+            // Salto (ex.: barra de rolagem arrastada): localiza o limite pela posição
+            int aposId = anterior != null ? anterior : dao.buscarIdNaPosicao(numero * TAMANHO_PAGINA - 1);
+            return dao.listarPagina(aposId, TAMANHO_PAGINA);
+        }, pagina -> {
+            if (geracaoDaCarga != geracao) {
+                return;
+            }
+            carregando.remove(numero);
+            paginas.put(numero, pagina);
+            if (!pagina.isEmpty()) {
+                ultimoIdDaPagina.put(numero, pagina.get(pagina.size() - 1).getId());
+            }
+
+            int inicio = numero * TAMANHO_PAGINA;
+            int fim = Math.min(tamanho, inicio + TAMANHO_PAGINA);
+            if (inicio < fim) {
+                beginChange();
+                for (int i = inicio; i < fim; i++) {
+                    // As linhas estavam vazias até agora
+                    nextSet(i, null);
+                }
+                endChange();
+            }
+        }, erro -> {
+            carregando.remove(numero);
+            System.err.println("Erro ao carregar página: " + erro.getMessage());
+        });
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.fxdemo.controllers;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.List;
+
+/**
+ * Notificação de que todo o conteúdo da lista foi trocado. {@code nextRemove(int, List)}
+ * percorreria os removidos um a um; aqui eles ficam como estão (normalmente uma visão do
+ * conteúdo antigo), sem criar objetos para linhas que ninguém lê.
+ */
+class TrocaCompleta<E> extends ListChangeListener.Change<E> {
+    private final int tamanhoNovo;
+    private final List<E> removidos;
+    private boolean consumida;
+
+    TrocaCompleta(ObservableList<E> lista, int tamanhoNovo, List<E> removidos) {
+        super(lista);
+        this.tamanhoNovo = tamanhoNovo;
+        this.removidos = removidos;
+    }
+
+    @Override
+    public boolean next() {
+        if (consumida) {
+            return false;
+        }
+        consumida = true;
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        consumida = false;
+    }
+
+    @Override
+    public int getFrom() {
+        return 0;
+    }
+
+    @Override
+    public int getTo() {
+        return tamanhoNovo;
+    }
+
+    @Override
+    public List<E> getRemoved() {
+        return removidos;
+    }
+
+    @Override
+    protected int[] getPermutation() {
+        return new int[0];
+    }
+}
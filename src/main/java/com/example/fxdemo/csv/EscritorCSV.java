@@ -0,0 +1,192 @@
+package com.example.fxdemo.csv;
+
+import com.example.fxdemo.model.Produto;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Codifica linhas de CSV de produtos direto em um buffer de bytes reaproveitado, sem
+ * {@code String.format}. O preço é gravado em ponto fixo (centavos), sempre com ponto decimal,
+ * independente do locale. Nomes com vírgula, aspas, quebra de linha ou espaços nas pontas vão
+ * entre aspas (RFC 4180), de modo que o {@link LeitorCSV} devolve exatamente o mesmo nome.
+ * <p>
+ * Com um canal de destino, o buffer é descarregado nele sempre que enche; sem canal, serve para
+ * montar linhas avulsas ({@link #linha}, {@link #formatar}).
+ */
+public final class EscritorCSV {
+    public static final String CABECALHO = "nome,preco,estoque";
+
+    private static final int TAMANHO_BUFFER = 1 << 16;
+    // Descarrega antes de encher, para caber uma linha típica inteira
+    private static final int FOLGA_DESCARGA = 1024;
+
+    private final WritableByteChannel destino;
+    private final int limiteDescarga;
+    private byte[] dados;
+    private int tamanho;
+
+    public EscritorCSV(WritableByteChannel destino) {
+        this(destino, TAMANHO_BUFFER);
+    }
+
+    /**
+     * Com um buffer de {@code capacidade} bytes: buffers maiores fazem menos escritas no canal
+     * (ex.: exportações grandes).
+     */
+    public EscritorCSV(WritableByteChannel destino, int capacidade) {
+        this.destino = destino;
+        this.dados = new byte[capacidade];
+        this.limiteDescarga = Math.max(capacidade - FOLGA_DESCARGA, capacidade / 2);
+    }
+
+    /**
+     * Linha do produto, com a quebra de linha final, em UTF-8.
+     */
+    public static byte[] linha(Produto produto) {
+        EscritorCSV escritor = new EscritorCSV(null, 64);
+        escritor.codificar(produto.getNome(), centavos(produto.getPreco()), produto.getEstoque());
+        return Arrays.copyOf(escritor.dados, escritor.tamanho);
+    }
+
+    /**
+     * Linha do produto, sem a quebra de linha final.
+     */
+    public static String formatar(Produto produto) {
+        EscritorCSV escritor = new EscritorCSV(null, 64);
+        escritor.codificar(produto.getNome(), centavos(produto.getPreco()), produto.getEstoque());
+        return new String(escritor.dados, 0, escritor.tamanho - 1, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Preço arredondado para centavos (meio centavo para cima).
+     */
+    public static long centavos(double preco) {
+        return Math.round(preco * 100);
+    }
+
+    public void escreverCabecalho() throws IOException {
+        garantir(CABECALHO.length() + 1);
+        for (int i = 0; i < CABECALHO.length(); i++) {
+            dados[tamanho++] = (byte) CABECALHO.charAt(i);
+        }
+        dados[tamanho++] = '\n';
+    }
+
+    public void escrever(Produto produto) throws IOException {
+        escrever(produto.getNome(), centavos(produto.getPreco()), produto.getEstoque());
+    }
+
+    public void escrever(String nome, long precoCentavos, int estoque) throws IOException {
+        codificar(nome, precoCentavos, estoque);
+        if (tamanho >= limiteDescarga) {
+            descarregar();
+        }
+    }
+
+    /**
+     * Grava no canal o que estiver no buffer.
+     */
+    public void descarregar() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(dados, 0, tamanho);
+        while (buffer.hasRemaining()) {
+            destino.write(buffer);
+        }
+        tamanho = 0;
+    }
+
+    private void codificar(String nome, long precoCentavos, int estoque) {
+        // nome (até 3 bytes por char em UTF-8, mais aspas) + preço + estoque + separadores
+        garantir(nome.length() * 3 + 2 + 20 + 1 + 11 + 3);
+        escreverNome(nome);
+        dados[tamanho++] = ',';
+        escreverPreco(precoCentavos);
+        dados[tamanho++] = ',';
+        escreverInteiro(estoque);
+        dados[tamanho++] = '\n';
+    }
+
+    private void escreverNome(String nome) {
+        boolean aspas = precisaDeAspas(nome);
+        if (aspas) {
+            dados[tamanho++] = '"';
+        }
+        for (int i = 0; i < nome.length(); i++) {
+            char c = nome.charAt(i);
+            if (c >= 0x80) {
+                // Fora do ASCII: codifica o restante de uma vez
+                byte[] resto = nome.substring(i).getBytes(StandardCharsets.UTF_8);
+                for (byte b : resto) {
+                    if (b == '"') {
+                        dados[tamanho++] = '"';
+                    }
+                    dados[tamanho++] = b;
+                }
+                break;
+            }
+            if (c == '"') {
+                dados[tamanho++] = '"';
+            }
+            dados[tamanho++] = (byte) c;
+        }
+        if (aspas) {
+            dados[tamanho++] = '"';
+        }
+    }
+
+    // O leitor apara espaços de campos sem aspas e trata aspas, vírgulas e quebras de linha
+    private static boolean precisaDeAspas(String nome) {
+        if (nome.isEmpty()) {
+            return false;
+        }
+        if (nome.charAt(0) <= ' ' || nome.charAt(nome.length() - 1) <= ' ') {
+            return true;
+        }
+        for (int i = 0; i < nome.length(); i++) {
+            char c = nome.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void escreverPreco(long centavos) {
+        if (centavos < 0) {
+            dados[tamanho++] = '-';
+            centavos = -centavos;
+        }
+        escreverInteiro(centavos / 100);
+        int fracao = (int) (centavos % 100);
+        dados[tamanho++] = '.';
+        dados[tamanho++] = (byte) ('0' + fracao / 10);
+        dados[tamanho++] = (byte) ('0' + fracao % 10);
+    }
+
+    private void escreverInteiro(long valor) {
+        if (valor < 0) {
+            dados[tamanho++] = '-';
+            valor = -valor;
+        }
+        int inicio = tamanho;
+        do {
+            dados[tamanho++] = (byte) ('0' + valor % 10);
+            valor /= 10;
+        } while (valor > 0);
+        // Os dígitos saíram do menos para o mais significativo
+        for (int i = inicio, j = tamanho - 1; i < j; i++, j--) {
+            byte b = dados[i];
+            dados[i] = dados[j];
+            dados[j] = b;
+        }
+    }
+
+    private void garantir(int espaco) {
+        if (tamanho + espaco > dados.length) {
+            dados = Arrays.copyOf(dados, Math.max(dados.length * 2, tamanho + espaco));
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package com.example.fxdemo.csv;
+
+import com.example.fxdemo.model.Produto;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Importação de arquivos CSV grandes: o arquivo é mapeado em memória ({@link FileChannel#map}),
+ * dividido em partes que terminam em quebra de linha e cada parte é lida por um {@link LeitorCSV}
+ * próprio em um {@link ForkJoinPool}. Os resultados são juntados na ordem do arquivo.
+ * <p>
+ * Uma quebra de linha dentro de aspas pode cair no limite de uma parte; nesse caso (raro) a
+ * parte termina dentro das aspas e o arquivo é relido sequencialmente.
+ */
+public final class ImportadorCSV {
+    private static final long TAMANHO_PARTE = Long.getLong("fxdemo.importacao.tamanhoParte", 8L << 20);
+    // Cada parte é entregue ao leitor em blocos; entre eles, progresso e cancelamento
+    private static final int TAMANHO_BLOCO = 1 << 20;
+    private static final long INTERVALO_PROGRESSO_NANOS = 100_000_000L;
+
+    /**
+     * Andamento da importação. Vazão medida desde o início.
+     */
+    public record Progresso(long bytesLidos, long bytesTotal, long validas, long invalidas,
+                            double linhasPorSegundo, double mbPorSegundo) {
+        public double fracao() {
+            return bytesTotal == 0 ? 1.0 : (double) bytesLidos / bytesTotal;
+        }
+    }
+
+    public record LinhaInvalida(long numeroLinha, String conteudo) {
+    }
+
+    /**
+     * Resultado de uma parte, com os números de linha já contados desde o início do arquivo.
+     */
+    public record Trecho(List<Produto> produtos, List<LinhaInvalida> invalidas) {
+    }
+
+    public record Resultado(List<Produto> produtos, List<LinhaInvalida> invalidas, long bytes, long nanos) {
+        public double linhasPorSegundo() {
+            return nanos == 0 ? 0 : (produtos.size() + invalidas.size()) * 1e9 / nanos;
+        }
+
+        public double mbPorSegundo() {
+            return nanos == 0 ? 0 : bytes / 1048576.0 * 1e9 / nanos;
+        }
+    }
+
+    /**
+     * Totais de {@link #importarEmTrechos}, que não guarda os produtos.
+     */
+    public record Resumo(long validas, long invalidas, long bytes, long nanos) {
+        public double linhasPorSegundo() {
+            return nanos == 0 ? 0 : (validas + invalidas) * 1e9 / nanos;
+        }
+
+        public double mbPorSegundo() {
+            return nanos == 0 ? 0 : bytes / 1048576.0 * 1e9 / nanos;
+        }
+    }
+
+    private final LeitorCSV.Cabecalho cabecalho;
+    private final ForkJoinPool pool;
+    private long tamanhoParte = TAMANHO_PARTE;
+
+    public ImportadorCSV(LeitorCSV.Cabecalho cabecalho) {
+        this(cabecalho, ForkJoinPool.commonPool());
+    }
+
+    public ImportadorCSV(LeitorCSV.Cabecalho cabecalho, ForkJoinPool pool) {
+        this.cabecalho = cabecalho;
+        this.pool = pool;
+    }
+
+    public void setTamanhoParte(long tamanhoParte) {
+        if (tamanhoParte < 1 || tamanhoParte > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Tamanho de parte inválido: " + tamanhoParte);
+        }
+        this.tamanhoParte = tamanhoParte;
+    }
+
+    public Resultado importar(Path arquivo, Consumer<Progresso> aoProgredir) throws IOException {
+        return importar(arquivo, aoProgredir, trecho -> { });
+    }
+
+    /**
+     * Importa o arquivo. {@code aoProgredir} é chamado das threads do pool, no máximo a cada
+     * 100 ms, e precisa ser thread-safe. {@code aoConcluirTrecho} é chamado na thread chamadora,
+     * uma vez por parte e na ordem do arquivo, à medida que as partes ficam prontas. Se a thread
+     * chamadora for interrompida, as partes em andamento são abandonadas e a importação termina
+     * com {@link InterruptedIOException}.
+     */
+    public Resultado importar(Path arquivo, Consumer<Progresso> aoProgredir, Consumer<Trecho> aoConcluirTrecho)
+            throws IOException {
+        long inicio = System.nanoTime();
+        List<Parte> partes = new ArrayList<>();
+        long tamanho = ler(arquivo, inicio, aoProgredir, parte -> {
+            aoConcluirTrecho.accept(parte.trecho());
+            partes.add(parte);
+        });
+        Resultado resultado = juntar(partes, tamanho, System.nanoTime() - inicio);
+        aoProgredir.accept(new Progresso(tamanho, tamanho, resultado.produtos().size(),
+                resultado.invalidas().size(), resultado.linhasPorSegundo(), resultado.mbPorSegundo()));
+        return resultado;
+    }
+
+    /**
+     * Como {@link #importar(Path, Consumer, Consumer)}, mas sem juntar os produtos: cada parte
+     * só é entregue a {@code aoConcluirTrecho} e depois descartada. A memória usada não depende
+     * do tamanho do arquivo, e um consumidor lento (ex.: gravando no banco) segura a leitura.
+     */
+    public Resumo importarEmTrechos(Path arquivo, Consumer<Progresso> aoProgredir,
+                                    Consumer<Trecho> aoConcluirTrecho) throws IOException {
+        long inicio = System.nanoTime();
+        long[] linhas = new long[2];
+        long tamanho = ler(arquivo, inicio, aoProgredir, parte -> {
+            aoConcluirTrecho.accept(parte.trecho());
+            linhas[0] += parte.produtos.size();
+            linhas[1] += parte.invalidas.size();
+        });
+        Resumo resumo = new Resumo(linhas[0], linhas[1], tamanho, System.nanoTime() - inicio);
+        aoProgredir.accept(new Progresso(tamanho, tamanho, resumo.validas(), resumo.invalidas(),
+                resumo.linhasPorSegundo(), resumo.mbPorSegundo()));
+        return resumo;
+    }
+
+    // Lê as partes em paralelo e entrega cada uma, na ordem do arquivo, na thread chamadora.
+    // Só algumas partes por thread do pool ficam lidas ou em leitura à frente da entregue; a
+    // seguinte só é submetida quando uma é entregue. Devolve o tamanho do arquivo
+    private long ler(Path arquivo, long inicio, Consumer<Progresso> aoProgredir, Consumer<Parte> aoConcluirParte)
+            throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            long tamanho = canal.size();
+            Andamento andamento = new Andamento(tamanho, inicio, aoProgredir);
+            List<Long> limites = dividir(canal, tamanho);
+            int quantas = limites.size() - 1;
+            int janela = Math.max(2, pool.getParallelism() * 2);
+
+            List<ForkJoinTask<Parte>> tarefas = new ArrayList<>(quantas);
+            for (int i = 0; i < Math.min(janela, quantas); i++) {
+                tarefas.add(submeter(canal, limites, i, andamento));
+            }
+
+            long deslocamento = 0;
+            try {
+                for (int i = 0; i < quantas; i++) {
+                    Parte parte = tarefas.get(i).get();
+                    tarefas.set(i, null);
+                    if (parte.entreAspas) {
+                        // A parte seguinte começou dentro de aspas. Esta começou numa linha de
+                        // verdade, então o restante é relido em sequência a partir dela.
+                        cancelar(andamento, tarefas);
+                        System.err.println("Quebra de linha entre aspas no limite de uma parte; relendo " + arquivo
+                                + " sequencialmente a partir do byte " + limites.get(i));
+                        parte = lerRestante(canal, limites.get(i));
+                        numerar(parte, deslocamento);
+                        aoConcluirParte.accept(parte);
+                        break;
+                    }
+                    if (i + janela < quantas) {
+                        tarefas.add(submeter(canal, limites, i + janela, andamento));
+                    }
+                    numerar(parte, deslocamento);
+                    deslocamento += parte.quebrasDeLinha;
+                    aoConcluirParte.accept(parte);
+                }
+            } catch (InterruptedException e) {
+                cancelar(andamento, tarefas);
+                throw new InterruptedIOException("Importação cancelada");
+            } catch (ExecutionException e) {
+                cancelar(andamento, tarefas);
+                if (e.getCause() instanceof UncheckedIOException erro) {
+                    throw erro.getCause();
+                }
+                throw new IOException("Falha na importação: " + e.getCause().getMessage(), e.getCause());
+            } catch (RuntimeException e) {
+                // Erro de quem consome as partes
+                cancelar(andamento, tarefas);
+                throw e;
+            }
+            return tamanho;
+        }
+    }
+
+    private ForkJoinTask<Parte> submeter(FileChannel canal, List<Long> limites, int indice, Andamento andamento) {
+        long de = limites.get(indice);
+        long ate = limites.get(indice + 1);
+        return pool.submit(() -> lerParte(canal, de, ate, cabecalhoDaParte(de), andamento));
+    }
+
+    private static void cancelar(Andamento andamento, List<ForkJoinTask<Parte>> tarefas) {
+        andamento.cancelado.set(true);
+        for (ForkJoinTask<Parte> tarefa : tarefas) {
+            if (tarefa != null) {
+                tarefa.cancel(false);
+            }
+        }
+    }
+
+    // Só a primeira parte pode ter cabeçalho
+    private LeitorCSV.Cabecalho cabecalhoDaParte(long inicio) {
+        return inicio == 0 ? cabecalho : LeitorCSV.Cabecalho.NENHUM;
+    }
+
+    private Parte lerRestante(FileChannel canal, long de) throws IOException {
+        Parte parte = new Parte();
+        LeitorCSV leitor = new LeitorCSV(cabecalhoDaParte(de), parte);
+        leitor.ler(canal.position(de));
+        parte.quebrasDeLinha = leitor.getQuebrasDeLinha();
+        return parte;
+    }
+
+    // Passa as linhas inválidas para a numeração do arquivo
+    private static void numerar(Parte parte, long deslocamento) {
+        if (deslocamento > 0) {
+            parte.invalidas.replaceAll(l -> new LinhaInvalida(deslocamento + l.numeroLinha(), l.conteudo()));
+        }
+    }
+
+    /**
+     * Posições de início de cada parte (e o fim do arquivo), sempre logo após um '\n'.
+     */
+    private List<Long> dividir(FileChannel canal, long tamanho) throws IOException {
+        List<Long> limites = new ArrayList<>();
+        limites.add(0L);
+        ByteBuffer busca = ByteBuffer.allocate(4096);
+        long posicao = tamanhoParte;
+        while (posicao < tamanho) {
+            long limite = depoisDaProximaQuebra(canal, posicao, tamanho, busca);
+            if (limite < 0 || limite >= tamanho) {
+                break;
+            }
+            limites.add(limite);
+            posicao = limite + tamanhoParte;
+        }
+        limites.add(tamanho);
+        return limites;
+    }
+
+    private static long depoisDaProximaQuebra(FileChannel canal, long posicao, long tamanho, ByteBuffer busca)
+            throws IOException {
+        while (posicao < tamanho) {
+            int lidos = canal.read(busca.clear(), posicao);
+            if (lidos <= 0) {
+                return -1;
+            }
+            for (int i = 0; i < lidos; i++) {
+                if (busca.get(i) == '\n') {
+                    return posicao + i + 1;
+                }
+            }
+            posicao += lidos;
+        }
+        return -1;
+    }
+
+    private static Parte lerParte(FileChannel canal, long de, long ate, LeitorCSV.Cabecalho cabecalho,
+                                  Andamento andamento) {
+        Parte parte = new Parte();
+        if (ate == de) {
+            return parte;
+        }
+        MappedByteBuffer mapa;
+        try {
+            mapa = canal.map(FileChannel.MapMode.READ_ONLY, de, ate - de);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        LeitorCSV leitor = new LeitorCSV(cabecalho, parte);
+        leitor.iniciar();
+        int validasAntes = 0;
+        int invalidasAntes = 0;
+        for (int posicao = 0; posicao < mapa.limit(); posicao += TAMANHO_BLOCO) {
+            if (andamento.cancelado.get()) {
+                throw new CancellationException();
+            }
+            int fim = (int) Math.min(mapa.limit(), (long) posicao + TAMANHO_BLOCO);
+            leitor.alimentar(mapa.slice(posicao, fim - posicao));
+            andamento.avancar(fim - posicao, parte.produtos.size() - validasAntes,
+                    parte.invalidas.size() - invalidasAntes);
+            validasAntes = parte.produtos.size();
+            invalidasAntes = parte.invalidas.size();
+        }
+        parte.entreAspas = leitor.isEntreAspas();
+        leitor.concluir();
+        parte.quebrasDeLinha = leitor.getQuebrasDeLinha();
+        return parte;
+    }
+
+    private static Resultado juntar(List<Parte> partes, long bytes, long nanos) {
+        int total = 0;
+        int totalInvalidas = 0;
+        for (Parte parte : partes) {
+            total += parte.produtos.size();
+            totalInvalidas += parte.invalidas.size();
+        }
+        List<Produto> produtos = new ArrayList<>(total);
+        List<LinhaInvalida> invalidas = new ArrayList<>(totalInvalidas);
+        for (Parte parte : partes) {
+            produtos.addAll(parte.produtos);
+            invalidas.addAll(parte.invalidas);
+        }
+        return new Resultado(produtos, invalidas, bytes, nanos);
+    }
+
+    private static final class Parte implements LeitorCSV.Destino {
+        final List<Produto> produtos = new ArrayList<>();
+        final List<LinhaInvalida> invalidas = new ArrayList<>();
+        boolean entreAspas;
+        long quebrasDeLinha;
+
+        Trecho trecho() {
+            return new Trecho(Collections.unmodifiableList(produtos), Collections.unmodifiableList(invalidas));
+        }
+
+        @Override
+        public void produto(String nome, double preco, int estoque) {
+            produtos.add(new Produto(nome, preco, estoque));
+        }
+
+        @Override
+        public void linhaInvalida(long numeroLinha, String conteudo) {
+            invalidas.add(new LinhaInvalida(numeroLinha, conteudo));
+        }
+    }
+
+    // Contadores compartilhados pelas partes
+    private static final class Andamento {
+        final long bytesTotal;
+        final long inicio;
+        final Consumer<Progresso> aoProgredir;
+        final AtomicLong bytesLidos = new AtomicLong();
+        final AtomicLong validas = new AtomicLong();
+        final AtomicLong invalidas = new AtomicLong();
+        final AtomicLong ultimoAviso = new AtomicLong();
+        final AtomicBoolean cancelado = new AtomicBoolean();
+
+        Andamento(long bytesTotal, long inicio, Consumer<Progresso> aoProgredir) {
+            this.bytesTotal = bytesTotal;
+            this.inicio = inicio;
+            this.aoProgredir = aoProgredir;
+            this.ultimoAviso.set(inicio);
+        }
+
+        void avancar(long bytes, long novasValidas, long novasInvalidas) {
+            bytesLidos.addAndGet(bytes);
+            validas.addAndGet(novasValidas);
+            invalidas.addAndGet(novasInvalidas);
+
+            long agora = System.nanoTime();
+            long anterior = ultimoAviso.get();
+            if (agora - anterior < INTERVALO_PROGRESSO_NANOS || !ultimoAviso.compareAndSet(anterior, agora)) {
+                return;
+            }
+            double segundos = Math.max(agora - inicio, 1) / 1e9;
+            long lidos = bytesLidos.get();
+            long ok = validas.get();
+            long ruins = invalidas.get();
+            aoProgredir.accept(new Progresso(lidos, bytesTotal, ok, ruins, (ok + ruins) / segundos,
+                    lidos / 1048576.0 / segundos));
+        }
+    }
+}
@@ -0,0 +1,502 @@
+package com.example.fxdemo.csv;
+
+import com.example.fxdemo.model.Produto;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Leitor em fluxo de CSV de produtos ({@code nome,preco,estoque}). Percorre os bytes direto de
+ * um buffer reaproveitado, sem montar uma String por linha nem usar {@code split}: a única
+ * alocação por linha é o nome. Os números são convertidos a partir dos próprios bytes.
+ * <p>
+ * Segue a RFC 4180 para aspas (campos com vírgulas, aspas duplicadas ou quebras de linha), mas
+ * aceita aspas soltas no meio de um campo sem aspas, como em {@code Monitor 24"}. Espaços em volta
+ * de campos sem aspas são descartados e linhas em branco são ignoradas. Colunas além da terceira
+ * são ignoradas (exceto com {@link #setCorrigirFormatoAntigo(boolean)}, só para o CSV da própria
+ * aplicação).
+ * <p>
+ * Não é thread-safe; uma instância pode ser reaproveitada para vários arquivos.
+ */
+public final class LeitorCSV {
+    private static final int TAMANHO_BUFFER = 1 << 16;
+
+    // Estados da leitura de um campo
+    private static final int INICIO_CAMPO = 0;
+    private static final int SEM_ASPAS = 1;
+    private static final int ENTRE_ASPAS = 2;
+    private static final int APOS_ASPAS = 3;
+
+    // Potências de 10 representadas exatamente em double
+    private static final double[] POTENCIAS_DE_10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Como tratar a primeira linha não vazia do arquivo.
+     */
+    public enum Cabecalho {
+        /** Sempre é cabeçalho (arquivos gravados pela aplicação). */
+        SEMPRE,
+        /** É cabeçalho se a primeira coluna for "nome" ou "produto" (arquivos externos). */
+        DETECTAR,
+        /** Não há cabeçalho. */
+        NENHUM
+    }
+
+    /**
+     * Recebe as linhas lidas, na ordem do arquivo.
+     */
+    @FunctionalInterface
+    public interface Destino {
+        void produto(String nome, double preco, int estoque);
+
+        /**
+         * Linha com menos de três colunas ou com preço/estoque inválidos.
+         */
+        default void linhaInvalida(long numeroLinha, String conteudo) {
+        }
+    }
+
+    private final Cabecalho cabecalho;
+    private final Destino destino;
+
+    private byte[][] campos = new byte[4][64];
+    private int[] tamanhos = new int[4];
+    private int quantidade;
+    private int estado;
+    // Parte do campo que veio entre aspas e não pode ser aparada
+    private int protegido;
+    private boolean primeiroRegistro;
+    private boolean inicioDoConteudo;
+    private long linha;
+    private long linhaDoRegistro;
+    private byte[] copia;
+    private long linhasCorrigidas;
+    private boolean corrigirFormatoAntigo;
+
+    public LeitorCSV(Cabecalho cabecalho, Destino destino) {
+        this.cabecalho = cabecalho;
+        this.destino = destino;
+    }
+
+    /**
+     * Reconhece as linhas do escritor antigo, com vírgula decimal ({@code Mouse,20,00,5}), em vez
+     * de ignorar a quarta coluna. Só vale para o {@code produtos.csv} da aplicação: em um arquivo
+     * externo, {@code Cabo,10,15,3} é uma linha válida com uma coluna a mais.
+     */
+    public void setCorrigirFormatoAntigo(boolean corrigirFormatoAntigo) {
+        this.corrigirFormatoAntigo = corrigirFormatoAntigo;
+    }
+
+    /**
+     * Lê uma única linha, sem cabeçalho. Devolve {@code null} se ela for inválida.
+     */
+    public static Produto lerProduto(String linha) {
+        Produto[] resultado = new Produto[1];
+        new LeitorCSV(Cabecalho.NENHUM, (nome, preco, estoque) -> resultado[0] = new Produto(nome, preco, estoque))
+                .ler(linha.getBytes(StandardCharsets.UTF_8));
+        return resultado[0];
+    }
+
+    public void ler(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            ler(canal);
+        }
+    }
+
+    /**
+     * Lê o canal até o fim. Se a thread for interrompida, para com {@link InterruptedIOException}.
+     */
+    public void ler(ReadableByteChannel canal) throws IOException {
+        iniciar();
+        ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_BUFFER);
+        while (canal.read(buffer.clear()) >= 0) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Leitura do CSV cancelada");
+            }
+            alimentar(buffer.flip());
+        }
+        concluir();
+    }
+
+    /**
+     * Lê um conteúdo já em memória.
+     */
+    public void ler(byte[] conteudo) {
+        iniciar();
+        alimentar(ByteBuffer.wrap(conteudo));
+        concluir();
+    }
+
+    /**
+     * Leitura em partes: {@code iniciar()}, um {@link #alimentar} por bloco, em ordem, e
+     * {@link #concluir()}. Uma linha pode ficar dividida entre dois blocos.
+     */
+    public void iniciar() {
+        quantidade = 0;
+        tamanhos[0] = 0;
+        estado = INICIO_CAMPO;
+        protegido = 0;
+        primeiroRegistro = cabecalho != Cabecalho.NENHUM;
+        inicioDoConteudo = true;
+        linhasCorrigidas = 0;
+        linha = 1;
+        linhaDoRegistro = 1;
+    }
+
+    public void alimentar(ByteBuffer bloco) {
+        if (bloco.hasArray()) {
+            int inicio = bloco.arrayOffset() + bloco.position();
+            processarBloco(bloco.array(), inicio, inicio + bloco.remaining());
+            bloco.position(bloco.limit());
+            return;
+        }
+        // Buffer direto ou mapeado: copia em pedaços para o array reaproveitado
+        if (copia == null) {
+            copia = new byte[TAMANHO_BUFFER];
+        }
+        while (bloco.hasRemaining()) {
+            int n = Math.min(bloco.remaining(), copia.length);
+            bloco.get(copia, 0, n);
+            processarBloco(copia, 0, n);
+        }
+    }
+
+    /**
+     * Entrega a última linha, se o conteúdo não terminar com quebra de linha.
+     */
+    public void concluir() {
+        finalizar();
+    }
+
+    /**
+     * Linhas no formato antigo, com vírgula decimal, corrigidas desde {@link #iniciar()}.
+     */
+    public long getLinhasCorrigidas() {
+        return linhasCorrigidas;
+    }
+
+    /**
+     * Se o conteúdo lido até agora termina dentro de um campo entre aspas.
+     */
+    public boolean isEntreAspas() {
+        return estado == ENTRE_ASPAS;
+    }
+
+    /**
+     * Quebras de linha lidas desde {@link #iniciar()}, inclusive as de dentro de aspas.
+     */
+    public long getQuebrasDeLinha() {
+        return linha - 1;
+    }
+
+    private void processarBloco(byte[] dados, int inicio, int fim) {
+        if (inicioDoConteudo && fim > inicio) {
+            inicioDoConteudo = false;
+            if (fim - inicio >= 3 && dados[inicio] == (byte) 0xEF && dados[inicio + 1] == (byte) 0xBB
+                    && dados[inicio + 2] == (byte) 0xBF) {
+                inicio += 3; // BOM do UTF-8
+            }
+        }
+        processar(dados, inicio, fim);
+    }
+
+    private void processar(byte[] dados, int inicio, int fim) {
+        int i = inicio;
+        while (i < fim) {
+            byte b = dados[i];
+            switch (estado) {
+                case INICIO_CAMPO -> {
+                    if (b == ',') {
+                        fecharCampo();
+                    } else if (b == '\n') {
+                        fecharLinha();
+                    } else if (b == '"') {
+                        estado = ENTRE_ASPAS;
+                    } else if ((b & 0xFF) > ' ') {
+                        estado = SEM_ASPAS;
+                        continue;
+                    }
+                    // espaços antes do campo são descartados
+                    i++;
+                }
+                case SEM_ASPAS -> {
+                    // Copia de uma vez até o próximo separador
+                    int j = i;
+                    while (j < fim && (b = dados[j]) != ',' && b != '\n') {
+                        j++;
+                    }
+                    acrescentar(dados, i, j);
+                    if (j < fim) {
+                        if (b == ',') {
+                            fecharCampo();
+                        } else {
+                            fecharLinha();
+                        }
+                        j++;
+                    }
+                    i = j;
+                }
+                case ENTRE_ASPAS -> {
+                    int j = i;
+                    while (j < fim && (b = dados[j]) != '"') {
+                        if (b == '\n') {
+                            linha++;
+                        }
+                        j++;
+                    }
+                    acrescentar(dados, i, j);
+                    if (j < fim) {
+                        protegido = tamanhos[quantidade];
+                        estado = APOS_ASPAS;
+                        j++;
+                    }
+                    i = j;
+                }
+                default -> { // APOS_ASPAS
+                    if (b == '"') {
+                        // "" dentro das aspas é uma aspa literal
+                        acrescentar(dados, i, i + 1);
+                        estado = ENTRE_ASPAS;
+                    } else if (b == ',') {
+                        fecharCampo();
+                    } else if (b == '\n') {
+                        fecharLinha();
+                    } else {
+                        estado = SEM_ASPAS;
+                        continue;
+                    }
+                    i++;
+                }
+            }
+        }
+    }
+
+    private void finalizar() {
+        // Última linha sem quebra no fim
+        if (estado != INICIO_CAMPO || quantidade > 0 || tamanhos[quantidade] > 0) {
+            fecharCampo();
+            fecharRegistro();
+        }
+    }
+
+    private void acrescentar(byte[] dados, int de, int ate) {
+        int n = ate - de;
+        if (n == 0) {
+            return;
+        }
+        byte[] campo = campos[quantidade];
+        int tamanho = tamanhos[quantidade];
+        if (tamanho + n > campo.length) {
+            campo = campos[quantidade] = Arrays.copyOf(campo, Math.max(campo.length * 2, tamanho + n));
+        }
+        System.arraycopy(dados, de, campo, tamanho, n);
+        tamanhos[quantidade] = tamanho + n;
+    }
+
+    private void fecharCampo() {
+        byte[] campo = campos[quantidade];
+        int tamanho = tamanhos[quantidade];
+        while (tamanho > protegido && (campo[tamanho - 1] & 0xFF) <= ' ') {
+            tamanho--;
+        }
+        tamanhos[quantidade] = tamanho;
+        quantidade++;
+        if (quantidade == campos.length) {
+            campos = Arrays.copyOf(campos, quantidade * 2);
+            tamanhos = Arrays.copyOf(tamanhos, quantidade * 2);
+            for (int i = quantidade; i < campos.length; i++) {
+                campos[i] = new byte[64];
+            }
+        }
+        tamanhos[quantidade] = 0;
+        protegido = 0;
+        estado = INICIO_CAMPO;
+    }
+
+    private void fecharLinha() {
+        fecharCampo();
+        fecharRegistro();
+        linha++;
+        linhaDoRegistro = linha;
+    }
+
+    private void fecharRegistro() {
+        int colunas = quantidade;
+        emitir(colunas);
+        quantidade = 0;
+        tamanhos[0] = 0;
+    }
+
+    private void emitir(int colunas) {
+        if (colunas == 1 && tamanhos[0] == 0) {
+            return; // linha em branco
+        }
+        if (primeiroRegistro) {
+            primeiroRegistro = false;
+            if (cabecalho == Cabecalho.SEMPRE || pareceCabecalho()) {
+                return;
+            }
+        }
+        if (colunas < 3) {
+            destino.linhaInvalida(linhaDoRegistro, texto(colunas));
+            return;
+        }
+        if (corrigirFormatoAntigo && colunas == 4 && formatoAntigo()) {
+            return;
+        }
+        double preco;
+        int estoque;
+        try {
+            preco = lerDecimal(campos[1], tamanhos[1]);
+            estoque = lerInteiro(campos[2], tamanhos[2]);
+        } catch (NumberFormatException e) {
+            destino.linhaInvalida(linhaDoRegistro, texto(colunas));
+            return;
+        }
+        destino.produto(new String(campos[0], 0, tamanhos[0], StandardCharsets.UTF_8), preco, estoque);
+    }
+
+    /**
+     * Linha gravada pelo escritor antigo em locale com vírgula decimal: {@code Mouse,20,00,5}.
+     * Reconhecida por quatro colunas com a terceira de exatamente dois dígitos.
+     */
+    private boolean formatoAntigo() {
+        if (tamanhos[2] != 2 || !digito(campos[2][0]) || !digito(campos[2][1])) {
+            return false;
+        }
+        long inteiro;
+        int estoque;
+        try {
+            inteiro = lerInteiroLongo(campos[1], tamanhos[1]);
+            estoque = lerInteiro(campos[3], tamanhos[3]);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        long centavos = Math.abs(inteiro) * 100 + (campos[2][0] - '0') * 10 + (campos[2][1] - '0');
+        boolean negativo = campos[1][0] == '-';
+        linhasCorrigidas++;
+        destino.produto(new String(campos[0], 0, tamanhos[0], StandardCharsets.UTF_8),
+                (negativo ? -centavos : centavos) / 100.0, estoque);
+        return true;
+    }
+
+    private static boolean digito(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private boolean pareceCabecalho() {
+        return igualIgnorandoCaixa(campos[0], tamanhos[0], "nome")
+                || igualIgnorandoCaixa(campos[0], tamanhos[0], "produto");
+    }
+
+    private static boolean igualIgnorandoCaixa(byte[] campo, int tamanho, String palavra) {
+        if (tamanho != palavra.length()) {
+            return false;
+        }
+        for (int i = 0; i < tamanho; i++) {
+            // palavra em minúsculas ASCII
+            if ((campo[i] | 0x20) != palavra.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Só no caminho de erro: remonta a linha a partir dos campos
+    private String texto(int colunas) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < colunas; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(new String(campos[i], 0, tamanhos[i], StandardCharsets.UTF_8));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Decimal simples ({@code -123.45}) convertido sem String intermediária. Com até 15 dígitos
+     * significativos e 22 casas, dividir a mantissa pela potência de 10 dá exatamente o mesmo
+     * double que {@link Double#parseDouble}; fora disso, usa o próprio parseDouble.
+     */
+    static double lerDecimal(byte[] campo, int tamanho) {
+        int i = 0;
+        boolean negativo = false;
+        if (tamanho > 0 && (campo[0] == '-' || campo[0] == '+')) {
+            negativo = campo[0] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digitos = 0;
+        int casas = 0;
+        boolean ponto = false;
+        for (; i < tamanho; i++) {
+            int c = campo[i];
+            if (c >= '0' && c <= '9') {
+                if (++digitos > 18) {
+                    return lerDecimalLento(campo, tamanho);
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (ponto) {
+                    casas++;
+                }
+            } else if (c == '.' && !ponto) {
+                ponto = true;
+            } else {
+                return lerDecimalLento(campo, tamanho);
+            }
+        }
+        if (digitos == 0) {
+            throw new NumberFormatException("Número vazio");
+        }
+        if (mantissa >= 1L << 53 || casas >= POTENCIAS_DE_10.length) {
+            return lerDecimalLento(campo, tamanho);
+        }
+        double valor = casas == 0 ? mantissa : mantissa / POTENCIAS_DE_10[casas];
+        return negativo ? -valor : valor;
+    }
+
+    // Expoente, muitos dígitos etc.
+    private static double lerDecimalLento(byte[] campo, int tamanho) {
+        return Double.parseDouble(new String(campo, 0, tamanho, StandardCharsets.ISO_8859_1));
+    }
+
+    static int lerInteiro(byte[] campo, int tamanho) {
+        long valor = lerInteiroLongo(campo, tamanho);
+        if (valor < Integer.MIN_VALUE || valor > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Inteiro fora do intervalo");
+        }
+        return (int) valor;
+    }
+
+    private static long lerInteiroLongo(byte[] campo, int tamanho) {
+        int i = 0;
+        boolean negativo = false;
+        if (tamanho > 0 && (campo[0] == '-' || campo[0] == '+')) {
+            negativo = campo[0] == '-';
+            i++;
+        }
+        if (i == tamanho || tamanho - i > 10) {
+            throw new NumberFormatException("Inteiro inválido");
+        }
+        long valor = 0;
+        for (; i < tamanho; i++) {
+            int c = campo[i];
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("Inteiro inválido");
+            }
+            valor = valor * 10 + (c - '0');
+        }
+        return negativo ? -valor : valor;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.fxdemo.dao;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Junta movimentos de estoque em memória e os grava de tempos em tempos, somados por produto:
+ * mil movimentos de um mesmo produto viram um único UPDATE, e os de produtos diferentes vão
+ * juntos em uma transação ({@link ProdutoDAO#ajustarEstoqueTodos(Map)}). Serve para rajadas de
+ * movimentos (leitores de código de barras, integrações) em que o estoque gravado pode ficar
+ * alguns instantes para trás.
+ * <p>
+ * Thread-safe. O total de cada produto passa pela mesma proteção de
+ * {@link ProdutoDAO#ajustarEstoque(int, int)}: se deixaria o estoque negativo, é recusado
+ * inteiro (e registrado no log). Se a gravação falhar, os movimentos voltam para o acumulador
+ * e vão na próxima. Os movimentos ainda não gravados se perdem se o processo terminar sem
+ * {@link #close()}; os registrados durante ou depois dele são gravados na hora, por quem registra.
+ */
+public class AcumuladorEstoque implements AutoCloseable {
+    private static final long INTERVALO_PADRAO_MS = Long.getLong("fxdemo.estoque.intervaloMs", 200);
+    // Produtos pendentes que antecipam a gravação
+    private static final int LIMITE_PADRAO = Integer.getInteger("fxdemo.estoque.limite", 10_000);
+
+    private final ProdutoDAO dao;
+    // Soma em long: muitos movimentos grandes não estouram antes da gravação
+    private final ConcurrentHashMap<Integer, Long> pendentes = new ConcurrentHashMap<>();
+    private final int limite;
+    private final ScheduledExecutorService gravador;
+    private final AtomicBoolean gravacaoPedida = new AtomicBoolean();
+    // Marcado por close() antes da última gravação: quem registra depois de vê-lo grava sozinho
+    private volatile boolean fechado;
+    // Uma gravação por vez
+    private final Object gravando = new Object();
+    private final LongAdder movimentos = new LongAdder();
+    private final LongAdder linhasGravadas = new LongAdder();
+    private final LongAdder gravacoes = new LongAdder();
+    private final LongAdder recusados = new LongAdder();
+
+    /**
+     * Números do acumulador desde a criação.
+     */
+    public record Estatisticas(long movimentos, long linhasGravadas, long gravacoes, long recusados, int pendentes) {
+        public double movimentosPorLinha() {
+            return linhasGravadas == 0 ? 0 : (double) movimentos / linhasGravadas;
+        }
+    }
+
+    public AcumuladorEstoque(ProdutoDAO dao) {
+        this(dao, INTERVALO_PADRAO_MS, LIMITE_PADRAO);
+    }
+
+    public AcumuladorEstoque(ProdutoDAO dao, long intervaloMs, int limite) {
+        if (intervaloMs < 1 || limite < 1) {
+            throw new IllegalArgumentException("Intervalo ou limite inválido: " + intervaloMs + ", " + limite);
+        }
+        this.dao = dao;
+        this.limite = limite;
+        this.gravador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "acumulador-estoque");
+            thread.setDaemon(true);
+            return thread;
+        });
+        gravador.scheduleWithFixedDelay(this::gravarRegistrando, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Acrescenta um movimento (positivo ou negativo) ao estoque do produto. Não bloqueia:
+     * a gravação acontece depois, em outra thread. Depois de {@link #close()}, grava na hora.
+     */
+    public void registrar(int id, int delta) {
+        pendentes.merge(id, (long) delta, Long::sum);
+        movimentos.increment();
+        // O movimento entra antes da leitura de fechado: se ela der false, a última gravação
+        // do close() ainda vai vê-lo
+        if (fechado) {
+            gravarAoFechar();
+            return;
+        }
+        if (pendentes.size() >= limite && gravacaoPedida.compareAndSet(false, true)) {
+            try {
+                gravador.execute(this::gravarRegistrando);
+            } catch (RejectedExecutionException e) {
+                gravacaoPedida.set(false); // close() em andamento; a gravação dele leva este movimento
+            }
+        }
+    }
+
+    /**
+     * Grava agora o que estiver pendente e devolve os totais recusados, com o motivo.
+     * Os que falharam por erro de acesso voltam para o acumulador e não são devolvidos.
+     */
+    public Map<Integer, ResultadoAjuste> gravar() {
+        synchronized (gravando) {
+            gravacaoPedida.set(false);
+            Map<Integer, Integer> lote = new HashMap<>();
+            Map<Integer, ResultadoAjuste> recusadosNoLote = new HashMap<>();
+            // remove() leva o total de cada produto atomicamente; um movimento que chegar
+            // depois começa uma soma nova, para a próxima gravação
+            for (Integer id : pendentes.keySet()) {
+                Long total = pendentes.remove(id);
+                if (total == null || total == 0) {
+                    continue;
+                }
+                if (total != total.intValue()) {
+                    recusadosNoLote.put(id, ResultadoAjuste.ESTOQUE_INSUFICIENTE);
+                } else {
+                    lote.put(id, total.intValue());
+                }
+            }
+            if (!lote.isEmpty()) {
+                Map<Integer, ResultadoAjuste> naoAplicados = dao.ajustarEstoqueTodos(lote);
+                naoAplicados.forEach((id, motivo) -> {
+                    if (motivo == ResultadoAjuste.FALHA) {
+                        pendentes.merge(id, (long) lote.get(id), Long::sum);
+                    } else {
+                        recusadosNoLote.put(id, motivo);
+                    }
+                });
+                gravacoes.increment();
+                linhasGravadas.add(lote.size() - naoAplicados.size());
+            }
+            recusados.add(recusadosNoLote.size());
+            return recusadosNoLote;
+        }
+    }
+
+    public Estatisticas estatisticas() {
+        return new Estatisticas(movimentos.sum(), linhasGravadas.sum(), gravacoes.sum(), recusados.sum(),
+                pendentes.size());
+    }
+
+    /**
+     * Para a gravação periódica e grava o que estiver pendente.
+     */
+    @Override
+    public void close() {
+        fechado = true;
+        gravador.shutdown();
+        try {
+            gravador.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        gravarAoFechar();
+    }
+
+    private void gravarAoFechar() {
+        gravarRegistrando();
+        if (!pendentes.isEmpty()) {
+            System.err.println("Movimentos de estoque não gravados: " + pendentes);
+        }
+    }
+
+    // Na thread de gravação, uma exceção cancelaria as próximas execuções
+    private void gravarRegistrando() {
+        try {
+            gravar().forEach((id, motivo) ->
+                    System.err.println("Movimento de estoque recusado (produto " + id + "): " + motivo));
+        } catch (RuntimeException e) {
+            System.err.println("Erro ao gravar movimentos de estoque: " + e.getMessage());
+        }
+    }
+}
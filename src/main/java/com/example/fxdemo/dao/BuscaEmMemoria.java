@@ -0,0 +1,114 @@
+package com.example.fxdemo.dao;
+
+import com.example.fxdemo.model.IndiceNomes;
+import com.example.fxdemo.model.Produto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Buscas de {@link RepositorioProdutos} para os mecanismos que guardam os produtos em memória,
+ * por varredura, com os mesmos critérios e a mesma ordem das consultas do ProdutoDAO (a busca
+ * por palavras segue a ordem de id). O repositório testa cada linha com {@link #aceita} e
+ * oferece só as que passam; apenas os {@code limite} primeiros na ordem ficam guardados.
+ */
+final class BuscaEmMemoria {
+    @FunctionalInterface
+    private interface Criterio {
+        boolean aceita(String nome, double preco, int estoque);
+    }
+
+    private static final Comparator<Produto> POR_ID = Comparator.comparingInt(Produto::getId);
+
+    private final Criterio criterio;
+    private final Comparator<Produto> ordem;
+    private final int pular;
+    private final int limite;
+    // O pior dos guardados fica no topo, para sair quando chega um melhor
+    private final PriorityQueue<Produto> melhores;
+
+    private BuscaEmMemoria(Criterio criterio, Comparator<Produto> ordem, int pular, int limite) {
+        this.criterio = criterio;
+        this.ordem = ordem;
+        this.pular = pular;
+        this.limite = pular + limite;
+        this.melhores = new PriorityQueue<>(Math.min(this.limite, 1024) + 1, ordem.reversed());
+    }
+
+    static BuscaEmMemoria porNomePrefixo(String prefixo, int limite) {
+        // Como o LIKE do SQLite: maiúsculas ignoradas e % e _ literais (ver ProdutoDAO)
+        return new BuscaEmMemoria((nome, preco, estoque) -> nome.regionMatches(true, 0, prefixo, 0, prefixo.length()),
+                Comparator.comparing(Produto::getNome, String.CASE_INSENSITIVE_ORDER).thenComparing(POR_ID),
+                0, limite);
+    }
+
+    static BuscaEmMemoria porFaixaDePreco(double minimo, double maximo, int limite) {
+        return new BuscaEmMemoria((nome, preco, estoque) -> preco >= minimo && preco <= maximo,
+                Comparator.comparingDouble(Produto::getPreco).thenComparing(POR_ID), 0, limite);
+    }
+
+    static BuscaEmMemoria porEstoqueAbaixoDe(int quantidade, int limite) {
+        return new BuscaEmMemoria((nome, preco, estoque) -> estoque < quantidade,
+                Comparator.comparingInt(Produto::getEstoque).thenComparing(POR_ID), 0, limite);
+    }
+
+    /**
+     * Palavras do nome começando com as do texto, como a expressão do FTS5 montada pelo
+     * ProdutoDAO: as palavras inteiras, menos a última se ainda estiver sendo digitada, que vale
+     * como prefixo. Maiúsculas e acentos são ignorados. Devolve {@code null} se o texto não tem
+     * palavras.
+     */
+    static BuscaEmMemoria porTexto(String texto, int pagina, int tamanhoPagina) {
+        List<String> palavras = new ArrayList<>();
+        for (String palavra : IndiceNomes.dobrar(texto).split("[^\\p{L}\\p{N}]+")) {
+            if (!palavra.isEmpty()) {
+                palavras.add(palavra);
+            }
+        }
+        if (palavras.isEmpty()) {
+            return null;
+        }
+        boolean digitandoUltima = Character.isLetterOrDigit(texto.charAt(texto.length() - 1));
+        return new BuscaEmMemoria((nome, preco, estoque) -> {
+            String dobrado = IndiceNomes.dobrar(nome);
+            for (int i = 0; i < palavras.size(); i++) {
+                if (!temPalavra(dobrado, palavras.get(i), digitandoUltima && i == palavras.size() - 1)) {
+                    return false;
+                }
+            }
+            return true;
+        }, POR_ID, pagina * tamanhoPagina, tamanhoPagina);
+    }
+
+    boolean aceita(String nome, double preco, int estoque) {
+        return criterio.aceita(nome, preco, estoque);
+    }
+
+    void oferecer(Produto produto) {
+        if (melhores.size() < limite) {
+            melhores.add(produto);
+        } else if (limite > 0 && ordem.compare(produto, melhores.peek()) < 0) {
+            melhores.poll();
+            melhores.add(produto);
+        }
+    }
+
+    List<Produto> resultado() {
+        List<Produto> produtos = new ArrayList<>(melhores);
+        produtos.sort(ordem);
+        return pular >= produtos.size() ? new ArrayList<>() : new ArrayList<>(produtos.subList(pular, produtos.size()));
+    }
+
+    private static boolean temPalavra(String nome, String palavra, boolean prefixo) {
+        for (int i = nome.indexOf(palavra); i >= 0; i = nome.indexOf(palavra, i + 1)) {
+            int fim = i + palavra.length();
+            if ((i == 0 || !Character.isLetterOrDigit(nome.charAt(i - 1)))
+                    && (prefixo || fim == nome.length() || !Character.isLetterOrDigit(nome.charAt(fim)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
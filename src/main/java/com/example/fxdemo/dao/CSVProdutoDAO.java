@@ -1,188 +1,339 @@
 package com.example.fxdemo.dao;
 
+import com.example.fxdemo.csv.EscritorCSV;
+import com.example.fxdemo.csv.ImportadorCSV;
+import com.example.fxdemo.csv.LeitorCSV;
+import com.example.fxdemo.model.IndiceNomes;
 import com.example.fxdemo.model.Produto;
+import com.example.fxdemo.model.ProdutosColunares;
 
-import java.io.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
 
+// Métodos sincronizados: o serviço assíncrono pode chamar o DAO de várias threads,
+// e as reescritas do arquivo não podem se intercalar
 public class CSVProdutoDAO {
     private static final String CSV_FILE = "produtos.csv";
 
+    // "memoria" (padrão): arquivo carregado uma vez e gravado em segundo plano.
+    // "arquivo": cada operação lê e reescreve o CSV diretamente.
+    private static final boolean MODO_MEMORIA =
+            !"arquivo".equalsIgnoreCase(System.getProperty("fxdemo.csv.modo", "memoria"));
+
+    private final Path arquivo;
+    private final RepositorioCSVEmMemoria repositorio;
+
     public CSVProdutoDAO() {
-        // Cria o arquivo se não existir
+        this(CSV_FILE);
+    }
+
+    public CSVProdutoDAO(String caminho) {
+        this(caminho, MODO_MEMORIA);
+    }
+
+    public CSVProdutoDAO(String caminho, boolean emMemoria) {
+        this.arquivo = Paths.get(caminho);
+        criarSeNaoExistir(arquivo);
+        this.repositorio = emMemoria ? RepositorioCSVEmMemoria.de(arquivo) : null;
+    }
+
+    // Um CSV novo começa só com o cabeçalho
+    static void criarSeNaoExistir(Path arquivo) {
         try {
-            File file = new File(CSV_FILE);
-            if (!file.exists()) {
-                // Cria cabeçalho
-                Files.write(Paths.get(CSV_FILE), "nome,preco,estoque\n".getBytes());
+            if (!Files.exists(arquivo)) {
+                Files.write(arquivo, (EscritorCSV.CABECALHO + "\n").getBytes());
             }
         } catch (IOException e) {
             System.err.println("Erro ao criar arquivo CSV: " + e.getMessage());
         }
     }
 
-    public void inserir(Produto produto) {
-        try {
-            String linha = String.format("%s,%.2f,%d\n",
-                produto.getNome(),
-                produto.getPreco(),
-                produto.getEstoque());
+    /**
+     * Grava no disco as alterações ainda pendentes do modo em memória (chamar ao encerrar).
+     */
+    public static void gravarPendentes() {
+        RepositorioCSVEmMemoria.fecharTodos();
+    }
 
-            Files.write(Paths.get(CSV_FILE), linha.getBytes(), StandardOpenOption.APPEND);
+    public synchronized void inserir(Produto produto) {
+        if (repositorio != null) {
+            repositorio.inserir(produto);
+            return;
+        }
+        try {
+            Files.write(arquivo, EscritorCSV.linha(produto), StandardOpenOption.APPEND);
         } catch (IOException e) {
             System.err.println("Erro ao inserir no CSV: " + e.getMessage());
         }
     }
 
-    public List<Produto> listarTodos() {
+    public synchronized List<Produto> listarTodos() {
+        if (repositorio != null) {
+            return repositorio.listarTodos();
+        }
         List<Produto> produtos = new ArrayList<>();
+        try {
+            lerArquivo(arquivo, produtos);
+        } catch (IOException e) {
+            System.err.println("Erro ao listar produtos do CSV: " + e.getMessage());
+            return new ArrayList<>();
+        }
+        return produtos;
+    }
 
-        try (BufferedReader br = new BufferedReader(new FileReader(CSV_FILE))) {
-            String linha;
-            boolean primeiraLinha = true;
-
-            while ((linha = br.readLine()) != null) {
-                if (linha.trim().isEmpty()) {
-                    continue;
-                }
-
-                // Pular cabeçalho
-                if (primeiraLinha) {
-                    primeiraLinha = false;
-                    continue;
-                }
-
-                String[] colunas = linha.split(",");
-                if (colunas.length >= 3) {
-                    try {
-                        String nome = colunas[0].trim();
-                        double preco = Double.parseDouble(colunas[1].trim());
-                        int estoque = Integer.parseInt(colunas[2].trim());
-
-                        Produto produto = new Produto();
-                        produto.setNome(nome);
-                        produto.setPreco(preco);
-                        produto.setEstoque(estoque);
-
-                        produtos.add(produto);
-                    } catch (NumberFormatException e) {
-                        System.err.println("Erro ao parsear linha do CSV: " + linha);
-                    }
-                }
-            }
+    /**
+     * Todos os produtos em colunas, sem um objeto por produto. Os ids seguem a ordem do arquivo.
+     */
+    public synchronized ProdutosColunares listarColunas() {
+        if (repositorio != null) {
+            return repositorio.listarColunas();
+        }
+        ProdutosColunares colunas = new ProdutosColunares();
+        try {
+            lerArquivo(arquivo, colunas);
         } catch (IOException e) {
             System.err.println("Erro ao listar produtos do CSV: " + e.getMessage());
+            return new ProdutosColunares();
         }
+        return colunas;
+    }
 
-        return produtos;
+    /**
+     * Ids (em ordem crescente, os mesmos de {@link #listarColunas()}) dos produtos cujo nome
+     * casa com o texto: com 1 ou 2 caracteres, alguma palavra começando por ele; com mais,
+     * o texto em qualquer posição. Maiúsculas e acentos são ignorados. No modo em memória a
+     * consulta vai ao índice mantido junto com os dados; no modo arquivo, o índice é montado
+     * a cada chamada.
+     */
+    public synchronized int[] buscarIdsPorNome(String texto) {
+        if (repositorio != null) {
+            return repositorio.buscarIdsPorNome(texto);
+        }
+        IndiceNomes indice = new IndiceNomes();
+        try {
+            lerArquivo(arquivo, new ProdutosColunares(), indice);
+        } catch (IOException e) {
+            System.err.println("Erro ao buscar produtos no CSV: " + e.getMessage());
+            return new int[0];
+        }
+        return indice.buscar(texto);
     }
 
-    public void atualizar(Produto produtoAntigo, Produto produtoNovo) {
-        List<String> linhas = new ArrayList<>();
+    /**
+     * Troca o produto antigo pelo novo. No modo em memória, a linha é achada pelo id e só é
+     * alterada se ainda estiver na versão do produto antigo; no modo arquivo, é achada pelo
+     * conteúdo, então uma linha alterada por outra pessoa também não é encontrada
+     * ({@link ResultadoAtualizacao#CONFLITO}).
+     */
+    public synchronized ResultadoAtualizacao atualizar(Produto produtoAntigo, Produto produtoNovo) {
+        if (repositorio != null) {
+            return repositorio.atualizar(produtoAntigo, produtoNovo);
+        }
 
         try {
             // Lê todas as linhas
-            linhas = Files.readAllLines(Paths.get(CSV_FILE));
+            List<Produto> produtos = new ArrayList<>();
+            lerArquivo(arquivo, produtos);
 
             // Procura e substitui a linha
-            for (int i = 0; i < linhas.size(); i++) {
-                String linha = linhas.get(i);
-                if (i == 0) { // Cabeçalho
-                    continue;
-                }
-
-                String[] colunas = linha.split(",");
-                if (colunas.length >= 3) {
-                    try {
-                        String nome = colunas[0].trim();
-                        double preco = Double.parseDouble(colunas[1].trim());
-                        int estoque = Integer.parseInt(colunas[2].trim());
-
-                        // Verifica se é o produto a ser atualizado
-                        if (nome.equals(produtoAntigo.getNome()) &&
-                            Math.abs(preco - produtoAntigo.getPreco()) < 0.01 &&
-                            estoque == produtoAntigo.getEstoque()) {
-
-                            // Substitui pela nova linha
-                            linhas.set(i, String.format("%s,%.2f,%d",
-                                produtoNovo.getNome(),
-                                produtoNovo.getPreco(),
-                                produtoNovo.getEstoque()));
-                            break;
-                        }
-                    } catch (NumberFormatException e) {
-                        // Ignora linhas mal formatadas
-                    }
+            for (int i = 0; i < produtos.size(); i++) {
+                if (mesmoProduto(produtos.get(i), produtoAntigo)) {
+                    produtos.set(i, produtoNovo);
+                    // Reescreve o arquivo
+                    escreverArquivo(arquivo, produtos);
+                    return ResultadoAtualizacao.ATUALIZADO;
                 }
             }
-
-            // Reescreve o arquivo
-            Files.write(Paths.get(CSV_FILE), linhas, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
-
+            return ResultadoAtualizacao.CONFLITO;
         } catch (IOException e) {
             System.err.println("Erro ao atualizar produto no CSV: " + e.getMessage());
         }
+        return ResultadoAtualizacao.FALHA;
     }
 
-    public void deletar(Produto produto) {
-        List<String> linhas = new ArrayList<>();
+    public synchronized void deletar(Produto produto) {
+        if (repositorio != null) {
+            repositorio.deletar(produto);
+            return;
+        }
 
         try {
             // Lê todas as linhas
-            linhas = Files.readAllLines(Paths.get(CSV_FILE));
+            List<Produto> produtos = new ArrayList<>();
+            lerArquivo(arquivo, produtos);
 
             // Remove a linha do produto
-            linhas.removeIf(linha -> {
-                if (linha.startsWith("nome,preco,estoque")) { // Cabeçalho
-                    return false;
-                }
-
-                String[] colunas = linha.split(",");
-                if (colunas.length >= 3) {
-                    try {
-                        String nome = colunas[0].trim();
-                        double preco = Double.parseDouble(colunas[1].trim());
-                        int estoque = Integer.parseInt(colunas[2].trim());
-
-                        return nome.equals(produto.getNome()) &&
-                               Math.abs(preco - produto.getPreco()) < 0.01 &&
-                               estoque == produto.getEstoque();
-                    } catch (NumberFormatException e) {
-                        return false;
-                    }
-                }
-                return false;
-            });
+            produtos.removeIf(p -> mesmoProduto(p, produto));
 
             // Reescreve o arquivo
-            Files.write(Paths.get(CSV_FILE), linhas, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            escreverArquivo(arquivo, produtos);
 
         } catch (IOException e) {
             System.err.println("Erro ao deletar produto do CSV: " + e.getMessage());
         }
     }
 
-    public void salvarTodosProdutos(List<Produto> produtos) {
+    public synchronized void salvarTodosProdutos(List<Produto> produtos) {
+        if (repositorio != null) {
+            repositorio.substituirTodos(produtos);
+            return;
+        }
         try {
-            List<String> linhas = new ArrayList<>();
-            linhas.add("nome,preco,estoque"); // Cabeçalho
+            escreverArquivo(arquivo, produtos);
+        } catch (IOException e) {
+            System.err.println("Erro ao salvar produtos no CSV: " + e.getMessage());
+        }
+    }
+
+    public ImportadorCSV.Resultado importar(Path externo, Consumer<ImportadorCSV.Progresso> aoProgredir,
+                                            Consumer<ImportadorCSV.Trecho> aoConcluirTrecho) throws IOException {
+        return importar(externo, new CancelamentoConsulta(), aoProgredir, aoConcluirTrecho);
+    }
+
+    /**
+     * Importa um CSV externo (lido em paralelo pelo {@link ImportadorCSV}) e acrescenta os
+     * produtos dele ao fim deste arquivo, sem tocar nas linhas existentes (nem nos ids delas, no
+     * modo em memória). Não depende da interface: quem chama recebe o progresso e cada trecho
+     * concluído pelos consumidores, nas threads do importador. Cancelada antes do acréscimo, a
+     * importação termina com {@link InterruptedIOException} e nada é gravado; depois dele, não
+     * é mais interrompida.
+     */
+    public ImportadorCSV.Resultado importar(Path externo, CancelamentoConsulta cancelamento,
+                                            Consumer<ImportadorCSV.Progresso> aoProgredir,
+                                            Consumer<ImportadorCSV.Trecho> aoConcluirTrecho) throws IOException {
+        // A leitura pode levar segundos e fica fora da trava; o acréscimo é uma escrita só, sob a
+        // trava de quem guarda o arquivo (no modo em memória, a do repositório compartilhado)
+        ImportadorCSV.Resultado resultado;
+        try {
+            resultado = new ImportadorCSV(LeitorCSV.Cabecalho.DETECTAR).importar(externo, aoProgredir, trecho -> {
+                if (cancelamento.isCancelada()) {
+                    throw new CancellationException();
+                }
+                aoConcluirTrecho.accept(trecho);
+            });
+        } catch (CancellationException e) {
+            throw new InterruptedIOException("Importação cancelada");
+        }
+        if (cancelamento.isCancelada()) {
+            throw new InterruptedIOException("Importação cancelada");
+        }
+        if (repositorio != null) {
+            if (!repositorio.inserirTodos(resultado.produtos())) {
+                throw new IOException("Não foi possível acrescentar os produtos importados a " + arquivo);
+            }
+            return resultado;
+        }
+        ByteArrayOutputStream linhas = new ByteArrayOutputStream();
+        for (Produto produto : resultado.produtos()) {
+            linhas.writeBytes(EscritorCSV.linha(produto));
+        }
+        synchronized (this) {
+            Files.write(arquivo, linhas.toByteArray(), StandardOpenOption.APPEND);
+        }
+        return resultado;
+    }
+
+    /**
+     * Lê o arquivo para a lista e devolve quantas linhas estavam no formato antigo, com
+     * vírgula decimal (elas são lidas corretamente, mas o arquivo deve ser regravado).
+     */
+    static long lerArquivo(Path arquivo, List<Produto> produtos) throws IOException {
+        return lerArquivo(arquivo, (nome, preco, estoque) -> produtos.add(new Produto(nome, preco, estoque)));
+    }
+
+    /**
+     * Como {@link #lerArquivo(Path, List)}, mas direto para as colunas; o id de cada produto é a
+     * posição da linha no arquivo (1, 2, ...).
+     */
+    static long lerArquivo(Path arquivo, ProdutosColunares colunas) throws IOException {
+        return lerArquivo(arquivo, (nome, preco, estoque) ->
+                colunas.adicionar(colunas.tamanho() + 1, nome, EscritorCSV.centavos(preco), estoque));
+    }
+
+    /**
+     * Como {@link #lerArquivo(Path, ProdutosColunares)}, indexando cada nome assim que é lido.
+     */
+    static long lerArquivo(Path arquivo, ProdutosColunares colunas, IndiceNomes indice) throws IOException {
+        return lerArquivo(arquivo, (nome, preco, estoque) -> {
+            int id = colunas.tamanho() + 1;
+            colunas.adicionar(id, nome, EscritorCSV.centavos(preco), estoque);
+            indice.adicionar(id, nome);
+        });
+    }
+
+    private static long lerArquivo(Path arquivo, LeitorCSV.Destino produtos) throws IOException {
+        LeitorCSV leitor = new LeitorCSV(LeitorCSV.Cabecalho.SEMPRE, new LeitorCSV.Destino() {
+            @Override
+            public void produto(String nome, double preco, int estoque) {
+                produtos.produto(nome, preco, estoque);
+            }
+
+            @Override
+            public void linhaInvalida(long numeroLinha, String conteudo) {
+                System.err.println("Erro ao parsear linha " + numeroLinha + " do CSV: " + conteudo);
+            }
+        });
+        // O arquivo da aplicação pode ter sido gravado pelo escritor antigo, com vírgula decimal
+        leitor.setCorrigirFormatoAntigo(true);
+        leitor.ler(arquivo);
+        return leitor.getLinhasCorrigidas();
+    }
+
+    static Produto parsearLinha(String linha) {
+        Produto produto = LeitorCSV.lerProduto(linha);
+        if (produto == null) {
+            System.err.println("Erro ao parsear linha do CSV: " + linha);
+        }
+        return produto;
+    }
+
+    /**
+     * Escreve o arquivo completo e só retorna depois de sincronizá-lo com o disco.
+     */
+    static void escreverArquivo(Path destino, List<Produto> produtos) throws IOException {
+        try (FileChannel canal = FileChannel.open(destino, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            EscritorCSV escritor = new EscritorCSV(canal);
+            escritor.escreverCabecalho();
 
             for (Produto produto : produtos) {
-                linhas.add(String.format("%s,%.2f,%d",
-                    produto.getNome(),
-                    produto.getPreco(),
-                    produto.getEstoque()));
+                escritor.escrever(produto);
             }
 
-            Files.write(Paths.get(CSV_FILE), linhas, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            escritor.descarregar();
+            canal.force(true);
+        }
+    }
+
+    static void escreverArquivo(Path destino, ProdutosColunares colunas) throws IOException {
+        try (FileChannel canal = FileChannel.open(destino, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            EscritorCSV escritor = new EscritorCSV(canal);
+            escritor.escreverCabecalho();
 
-        } catch (IOException e) {
-            System.err.println("Erro ao salvar produtos no CSV: " + e.getMessage());
+            for (int linha = 0; linha < colunas.tamanho(); linha++) {
+                escritor.escrever(colunas.getNome(linha), colunas.getPrecoCentavos(linha), colunas.getEstoque(linha));
+            }
+
+            escritor.descarregar();
+            canal.force(true);
         }
     }
-}
 
+    // Mesma comparação usada antes dos ids: nome, preço (ao centavo) e estoque
+    private static boolean mesmoProduto(Produto a, Produto b) {
+        return a.getNome().equals(b.getNome()) &&
+               Math.abs(a.getPreco() - b.getPreco()) < 0.01 &&
+               a.getEstoque() == b.getEstoque();
+    }
+}
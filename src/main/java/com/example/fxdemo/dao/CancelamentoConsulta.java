@@ -0,0 +1,47 @@
+package com.example.fxdemo.dao;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Permite interromper, de outra thread, uma consulta em andamento (ex.: a busca anterior
+ * quando o usuário continua digitando). O cancelamento chega ao SQLite por
+ * {@link Statement#cancel()}, que interrompe a execução no meio.
+ * <p>
+ * O statement só fica registrado enquanto a consulta roda: fora disso a conexão pode estar
+ * emprestada a outra thread e não pode ser interrompida.
+ */
+public final class CancelamentoConsulta {
+    private Statement statement;
+    private boolean cancelada;
+
+    public synchronized void cancelar() {
+        cancelada = true;
+        if (statement != null) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                System.err.println("Erro ao cancelar consulta: " + e.getMessage());
+            }
+        }
+    }
+
+    public synchronized boolean isCancelada() {
+        return cancelada;
+    }
+
+    /**
+     * Registra o statement que vai rodar; devolve {@code false} se já foi cancelada.
+     */
+    synchronized boolean iniciar(Statement statement) {
+        if (cancelada) {
+            return false;
+        }
+        this.statement = statement;
+        return true;
+    }
+
+    synchronized void concluir() {
+        statement = null;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.fxdemo.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Conexão real mantida pelo pool junto com o cache de PreparedStatements dela.
+ * Só é usada por uma thread de cada vez (enquanto emprestada), então o cache não é sincronizado.
+ */
+final class ConexaoFisica {
+    private static final int MAX_STATEMENTS = 32;
+
+    private final Connection conexao;
+    private final Map<String, PreparedStatement> statements =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> maisAntigo) {
+                    if (size() > MAX_STATEMENTS) {
+                        fecharStatement(maisAntigo.getValue());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+
+    ConexaoFisica(Connection conexao) {
+        this.conexao = conexao;
+    }
+
+    Connection getConexao() {
+        return conexao;
+    }
+
+    PreparedStatement preparar(String sql) throws SQLException {
+        PreparedStatement pstmt = statements.get(sql);
+        if (pstmt == null || pstmt.isClosed()) {
+            pstmt = conexao.prepareStatement(sql);
+            statements.put(sql, pstmt);
+        } else {
+            pstmt.clearParameters();
+        }
+        return pstmt;
+    }
+
+    void fechar() throws SQLException {
+        statements.values().forEach(ConexaoFisica::fecharStatement);
+        statements.clear();
+        conexao.close();
+    }
+
+    private static void fecharStatement(PreparedStatement pstmt) {
+        try {
+            pstmt.close();
+        } catch (SQLException e) {
+            System.err.println("Erro ao fechar statement: " + e.getMessage());
+        }
+    }
+}
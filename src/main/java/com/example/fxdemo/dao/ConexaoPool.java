@@ -0,0 +1,46 @@
+package com.example.fxdemo.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Conexão emprestada de um {@link PoolConexoes}. Fechar devolve a conexão ao pool
+ * em vez de fechar o arquivo do banco.
+ */
+public class ConexaoPool implements AutoCloseable {
+    private final PoolConexoes pool;
+    private ConexaoFisica fisica;
+
+    ConexaoPool(PoolConexoes pool, ConexaoFisica fisica) {
+        this.pool = pool;
+        this.fisica = fisica;
+    }
+
+    public Connection getConexao() {
+        return fisicaAtiva().getConexao();
+    }
+
+    /**
+     * Devolve o PreparedStatement em cache para este SQL, preparando-o na primeira vez.
+     * O statement pertence à conexão: o chamador fecha apenas o ResultSet, nunca o statement.
+     */
+    public PreparedStatement preparar(String sql) throws SQLException {
+        return fisicaAtiva().preparar(sql);
+    }
+
+    @Override
+    public void close() {
+        if (fisica != null) {
+            pool.devolver(fisica);
+            fisica = null;
+        }
+    }
+
+    private ConexaoFisica fisicaAtiva() {
+        if (fisica == null) {
+            throw new IllegalStateException("Conexão já devolvida ao pool");
+        }
+        return fisica;
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.fxdemo.dao;
+
+import com.example.fxdemo.csv.EscritorCSV;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exporta a tabela de produtos para CSV em memória constante, qualquer que seja o tamanho da
+ * tabela: as linhas vêm de um ResultSet só de avanço e são codificadas pelo {@link EscritorCSV}
+ * direto em um buffer de bytes grande, descarregado no {@link FileChannel} a cada vez que enche
+ * (nenhum {@code Produto} nem {@code String} de linha por registro).
+ * <p>
+ * Opcionalmente, a saída é comprimida em gzip e dividida em N arquivos por faixas de id com
+ * quantidades parecidas de linhas, escritos em paralelo, cada um com a própria conexão (leitores
+ * simultâneos no modo WAL). Cada arquivo tem cabeçalho e pode ser importado sozinho. Com mais de
+ * um arquivo, cada faixa é lida em uma transação própria: escritas feitas durante a exportação
+ * podem aparecer em umas faixas e não em outras.
+ * <p>
+ * Os arquivos são escritos ao lado do destino e só o substituem quando todos ficam prontos.
+ */
+public class ExportadorProdutos {
+    private static final int TAMANHO_BUSCA_PADRAO = 4096;
+    private static final int TAMANHO_BUFFER = 1 << 20;
+    private static final int LINHAS_POR_AVISO = 50_000;
+
+    /**
+     * Totais da exportação; {@code bytes} é o tamanho gravado em disco (já comprimido).
+     */
+    public record Resultado(long linhas, long bytes, long nanos, List<Path> arquivos) {
+        public double linhasPorSegundo() {
+            return nanos == 0 ? 0 : linhas * 1e9 / nanos;
+        }
+
+        public double mbPorSegundo() {
+            return nanos == 0 ? 0 : bytes / 1048576.0 * 1e9 / nanos;
+        }
+    }
+
+    private final String url;
+    private int partes = 1;
+    private boolean gzip;
+    private int tamanhoBusca = TAMANHO_BUSCA_PADRAO;
+
+    public ExportadorProdutos(String url) {
+        this.url = url;
+    }
+
+    public void setPartes(int partes) {
+        if (partes < 1) {
+            throw new IllegalArgumentException("Número de partes inválido: " + partes);
+        }
+        this.partes = partes;
+    }
+
+    public void setGzip(boolean gzip) {
+        this.gzip = gzip;
+    }
+
+    /**
+     * Linhas pedidas ao driver por vez.
+     */
+    public void setTamanhoBusca(int tamanhoBusca) {
+        if (tamanhoBusca < 1) {
+            throw new IllegalArgumentException("Tamanho de busca inválido: " + tamanhoBusca);
+        }
+        this.tamanhoBusca = tamanhoBusca;
+    }
+
+    /**
+     * Nome do arquivo de cada parte: {@code produtos.csv} vira {@code produtos-1.csv},
+     * {@code produtos-2.csv}... (com uma parte só, o próprio destino).
+     */
+    public Path arquivoDaParte(Path destino, int parte) {
+        if (partes == 1) {
+            return destino;
+        }
+        String nome = destino.getFileName().toString();
+        int ponto = nome.indexOf('.', 1);
+        String parteNome = ponto < 0
+                ? nome + "-" + parte
+                : nome.substring(0, ponto) + "-" + parte + nome.substring(ponto);
+        return destino.resolveSibling(parteNome);
+    }
+
+    /**
+     * Exporta a tabela. {@code aoProgredir} recebe o total de linhas já exportadas, das threads
+     * das partes, e precisa ser thread-safe.
+     */
+    public Resultado exportar(Path destino, LongConsumer aoProgredir) throws IOException {
+        long inicio = System.nanoTime();
+        PoolConexoes pool = new PoolConexoes(url, partes);
+        ExecutorService executor = Executors.newFixedThreadPool(partes, r -> {
+            Thread thread = new Thread(r, "exportador-produtos");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Path> temporarios = new ArrayList<>(partes);
+        try {
+            int[] limites = limites(pool);
+            AtomicLong exportadas = new AtomicLong();
+            List<Future<Long>> tarefas = new ArrayList<>(partes);
+            for (int i = 0; i < partes; i++) {
+                Path temporario = temporario(arquivoDaParte(destino, i + 1));
+                temporarios.add(temporario);
+                int de = limites[i];
+                int ate = limites[i + 1];
+                tarefas.add(executor.submit(() -> exportarFaixa(pool, de, ate, temporario, exportadas, aoProgredir)));
+            }
+            long linhas = 0;
+            for (Future<Long> tarefa : tarefas) {
+                linhas += tarefa.get();
+            }
+
+            List<Path> arquivos = new ArrayList<>(partes);
+            long bytes = 0;
+            for (int i = 0; i < partes; i++) {
+                Path arquivo = arquivoDaParte(destino, i + 1);
+                bytes += Files.size(temporarios.get(i));
+                Files.move(temporarios.get(i), arquivo, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                arquivos.add(arquivo);
+            }
+            temporarios.clear();
+            return new Resultado(linhas, bytes, System.nanoTime() - inicio, arquivos);
+        } catch (SQLException e) {
+            throw new IOException("Erro ao ler os produtos: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Exportação interrompida");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException erro) {
+                throw erro;
+            }
+            if (e.getCause() instanceof SQLException erro) {
+                throw new IOException("Erro ao ler os produtos: " + erro.getMessage(), erro);
+            }
+            throw new IOException("Falha na exportação: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+            for (Path temporario : temporarios) {
+                Files.deleteIfExists(temporario);
+            }
+            pool.fechar();
+        }
+    }
+
+    // Ids que começam cada faixa, escolhidos para dividir as linhas em partes iguais; o último
+    // valor fecha a última faixa
+    private int[] limites(PoolConexoes pool) throws SQLException {
+        int[] limites = new int[partes + 1];
+        limites[0] = Integer.MIN_VALUE;
+        limites[partes] = Integer.MAX_VALUE;
+        if (partes == 1) {
+            return limites;
+        }
+        try (ConexaoPool conn = pool.emprestar()) {
+            long total;
+            try (ResultSet rs = conn.preparar("SELECT COUNT(*) FROM produtos").executeQuery()) {
+                total = rs.next() ? rs.getLong(1) : 0;
+            }
+            PreparedStatement pstmt = conn.preparar("SELECT id FROM produtos ORDER BY id LIMIT 1 OFFSET ?");
+            for (int i = 1; i < partes; i++) {
+                pstmt.setLong(1, total * i / partes);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    limites[i] = rs.next() ? rs.getInt(1) : limites[i - 1];
+                }
+            }
+        }
+        return limites;
+    }
+
+    // Linhas com id em [de, ate); a última faixa inclui o próprio Integer.MAX_VALUE
+    private long exportarFaixa(PoolConexoes pool, int de, int ate, Path arquivo, AtomicLong exportadas,
+                               LongConsumer aoProgredir) throws IOException, SQLException {
+        String sql = "SELECT nome, preco, estoque FROM produtos WHERE id >= ? AND "
+                + (ate == Integer.MAX_VALUE ? "id <= ?" : "id < ?") + " ORDER BY id";
+        long linhas = 0;
+        try (ConexaoPool conn = pool.emprestar();
+             PreparedStatement pstmt = conn.getConexao().prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                     ResultSet.CONCUR_READ_ONLY);
+             FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            pstmt.setFetchSize(tamanhoBusca);
+            pstmt.setInt(1, de);
+            pstmt.setInt(2, ate);
+            WritableByteChannel saida = canal;
+            GZIPOutputStream compressor = null;
+            if (gzip) {
+                compressor = new GZIPOutputStream(Channels.newOutputStream(canal), 1 << 16);
+                saida = Channels.newChannel(compressor);
+            }
+            EscritorCSV escritor = new EscritorCSV(saida, TAMANHO_BUFFER);
+            escritor.escreverCabecalho();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    escritor.escrever(rs.getString(1), EscritorCSV.centavos(rs.getDouble(2)), rs.getInt(3));
+                    if (++linhas % LINHAS_POR_AVISO == 0) {
+                        aoProgredir.accept(exportadas.addAndGet(LINHAS_POR_AVISO));
+                        if (Thread.currentThread().isInterrupted()) {
+                            throw new InterruptedIOException("Exportação interrompida");
+                        }
+                    }
+                }
+            }
+            escritor.descarregar();
+            if (compressor != null) {
+                // Escreve o resto comprimido e o rodapé do gzip sem fechar o canal
+                compressor.finish();
+            }
+            canal.force(true);
+        }
+        aoProgredir.accept(exportadas.addAndGet(linhas % LINHAS_POR_AVISO));
+        return linhas;
+    }
+
+    private static Path temporario(Path arquivo) {
+        return arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+    }
+}
@@ -0,0 +1,577 @@
+package com.example.fxdemo.dao;
+
+import com.example.fxdemo.model.Produto;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cópia da tabela {@code produtos} em arquivos mapeados na memória, fora do heap: registros de
+ * tamanho fixo ordenados por id em {@code <banco>.inst} e os nomes em UTF-8 em
+ * {@code <banco>.inst.nomes}. Abrir a cópia é só mapear os arquivos, sem consultar o banco nem
+ * criar objetos; a tela lê cada campo direto do arquivo e só cria um {@link Produto} quando a
+ * linha é exibida.
+ * <p>
+ * O {@link ProdutoDAO} atualiza a cópia a cada escrita bem-sucedida. O cabeçalho marca a cópia
+ * como aberta enquanto o programa roda e limpa ao fechar: depois de uma queda ela é descartada e
+ * reconstruída a partir do banco. O cabeçalho também guarda a soma das versões dos produtos:
+ * como toda escrita no banco cria um id novo, remove uma linha ou incrementa uma versão, a
+ * contagem, o maior id e essa soma bastam para perceber alterações feitas por outro processo
+ * (ver {@link ProdutoDAO#sincronizarInstantaneo()}).
+ * <p>
+ * Só um processo usa a cópia de cada banco: ele mantém uma trava em {@code <banco>.inst.trava}.
+ * Em outro processo com o mesmo banco, a cópia fica desligada e o DAO lê do banco.
+ * <p>
+ * Os arquivos ficam mapeados enquanto a cópia está aberta e, no Windows, um arquivo mapeado não
+ * pode ser renomeado nem apagado: reconstruções e compactações regravam os mesmos arquivos, que
+ * só crescem. Um cabeçalho marcado como aberto protege contra quedas no meio da regravação.
+ * <p>
+ * Nomes alterados ou removidos deixam bytes sem uso no arquivo de nomes; quando eles passam da
+ * metade, os nomes são compactados no início do arquivo. Os dois arquivos são limitados a 2 GB
+ * (índices de {@link ByteBuffer}).
+ */
+public class InstantaneoProdutos {
+    private static final int MAGICO = 0x46585053; // "FXPS"
+    private static final int VERSAO = 3;
+    private static final int LIMPO = 0;
+    private static final int ABERTO = 1;
+
+    // Cabeçalho: mágico, versão, estado, contagem, bytes de nomes usados, bytes de nomes sem uso,
+    // soma das versões dos produtos
+    private static final int CABECALHO = 40;
+    private static final int POS_ESTADO = 8;
+    private static final int POS_CONTAGEM = 12;
+    private static final int POS_BYTES_NOMES = 16;
+    private static final int POS_NOMES_SEM_USO = 24;
+    private static final int POS_SOMA_VERSOES = 32;
+
+    // Registro: id, estoque, preço, início do nome, tamanho do nome, versão do produto
+    private static final int REGISTRO = 32;
+    private static final int ID = 0;
+    private static final int ESTOQUE = 4;
+    private static final int PRECO = 8;
+    private static final int NOME_INICIO = 16;
+    private static final int NOME_TAMANHO = 24;
+    private static final int VERSAO_PRODUTO = 28;
+
+    private static final int CAPACIDADE_INICIAL = 1 << 16;
+    private static final long MIN_NOMES_SEM_USO = 1 << 20;
+
+    private static final Map<Path, InstantaneoProdutos> INSTANTANEOS = new ConcurrentHashMap<>();
+
+    private final Path arquivo;
+    private final Path arquivoNomes;
+    // Mantido aberto enquanto a cópia estiver em uso: fechá-lo solta a trava
+    private final FileChannel canalTrava;
+    private FileChannel canal;
+    private FileChannel canalNomes;
+    private MappedByteBuffer registros;
+    private MappedByteBuffer nomes;
+    private boolean valido;
+    // Escritas que chegam durante uma reconstrução; reaplicadas sobre a cópia nova
+    private List<Runnable> pendentes;
+
+    private InstantaneoProdutos(Path arquivo, FileChannel canalTrava) {
+        this.arquivo = arquivo;
+        this.canalTrava = canalTrava;
+        this.arquivoNomes = arquivo.resolveSibling(arquivo.getFileName() + ".nomes");
+        if (!Files.exists(arquivo) || !Files.exists(arquivoNomes)) {
+            return; // criado na primeira reconstrução
+        }
+        try {
+            abrirCanais();
+            mapear();
+            valido = registros.capacity() >= CABECALHO && registros.getInt(0) == MAGICO
+                    && registros.getInt(4) == VERSAO && registros.getInt(POS_ESTADO) == LIMPO
+                    && CABECALHO + (long) contagem() * REGISTRO <= registros.capacity()
+                    && registros.getLong(POS_BYTES_NOMES) <= nomes.capacity();
+            if (valido) {
+                registros.putInt(POS_ESTADO, ABERTO);
+                registros.force();
+            } else {
+                System.err.println("Cópia dos produtos desatualizada ou incompleta; será reconstruída: " + arquivo);
+            }
+        } catch (IOException e) {
+            System.err.println("Erro ao abrir cópia dos produtos: " + e.getMessage());
+            fecharCanais();
+        }
+    }
+
+    /**
+     * Cópia do banco SQLite da URL, ou {@code null} se o banco não for um arquivo.
+     */
+    static InstantaneoProdutos paraUrl(String url) {
+        if (!url.startsWith("jdbc:sqlite:")) {
+            return null;
+        }
+        String caminho = url.substring("jdbc:sqlite:".length());
+        int parametros = caminho.indexOf('?');
+        if (parametros >= 0) {
+            caminho = caminho.substring(0, parametros);
+        }
+        if (caminho.isEmpty() || caminho.contains(":memory:") || caminho.startsWith("file:")) {
+            return null;
+        }
+        Path banco = Path.of(caminho).toAbsolutePath().normalize();
+        return INSTANTANEOS.computeIfAbsent(banco.resolveSibling(banco.getFileName() + ".inst"),
+                InstantaneoProdutos::abrir);
+    }
+
+    // null se outro processo já usa a cópia deste banco
+    private static InstantaneoProdutos abrir(Path arquivo) {
+        Path trava = arquivo.resolveSibling(arquivo.getFileName() + ".trava");
+        FileChannel canalTrava = null;
+        try {
+            canalTrava = FileChannel.open(trava, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (canalTrava.tryLock() != null) {
+                return new InstantaneoProdutos(arquivo, canalTrava);
+            }
+            System.err.println("Cópia dos produtos em uso por outro processo; desligada neste: " + arquivo);
+        } catch (IOException | OverlappingFileLockException e) {
+            System.err.println("Erro ao travar cópia dos produtos; desligada: " + e.getMessage());
+        }
+        fecharCanal(canalTrava);
+        return null;
+    }
+
+    /**
+     * Marca as cópias abertas como íntegras e fecha os arquivos (chamar ao encerrar).
+     */
+    public static void fecharTodos() {
+        INSTANTANEOS.values().forEach(InstantaneoProdutos::fechar);
+        INSTANTANEOS.clear();
+    }
+
+    public synchronized boolean isValido() {
+        return valido;
+    }
+
+    public synchronized int contagem() {
+        return registros == null ? 0 : registros.getInt(POS_CONTAGEM);
+    }
+
+    public synchronized int id(int linha) {
+        return registros.getInt(posicao(linha) + ID);
+    }
+
+    public synchronized int estoque(int linha) {
+        return registros.getInt(posicao(linha) + ESTOQUE);
+    }
+
+    public synchronized double preco(int linha) {
+        return registros.getDouble(posicao(linha) + PRECO);
+    }
+
+    public synchronized String nome(int linha) {
+        int posicao = posicao(linha);
+        byte[] bytes = new byte[registros.getInt(posicao + NOME_TAMANHO)];
+        nomes.get((int) registros.getLong(posicao + NOME_INICIO), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public synchronized int versao(int linha) {
+        return registros.getInt(posicao(linha) + VERSAO_PRODUTO);
+    }
+
+    public synchronized Produto produto(int linha) {
+        return new Produto(id(linha), nome(linha), preco(linha), estoque(linha), versao(linha));
+    }
+
+    /**
+     * Como {@link java.util.Arrays#binarySearch}: a linha do id ou, se ausente,
+     * {@code -(linha onde ele entraria) - 1}.
+     */
+    public synchronized int buscarId(int id) {
+        int baixo = 0;
+        int alto = contagem() - 1;
+        while (baixo <= alto) {
+            int meio = (baixo + alto) >>> 1;
+            int idMeio = registros.getInt(CABECALHO + meio * REGISTRO + ID);
+            if (idMeio < id) {
+                baixo = meio + 1;
+            } else if (idMeio > id) {
+                alto = meio - 1;
+            } else {
+                return meio;
+            }
+        }
+        return -(baixo + 1);
+    }
+
+    /**
+     * Se a cópia está íntegra e tem a contagem, o maior id e a soma das versões informados
+     * (os do banco).
+     */
+    synchronized boolean confere(int contagemBanco, int maiorIdBanco, long somaVersoesBanco) {
+        if (!valido || pendentes != null) {
+            return false;
+        }
+        int contagem = contagem();
+        int maiorId = contagem == 0 ? 0 : id(contagem - 1);
+        return contagem == contagemBanco && maiorId == maiorIdBanco
+                && registros.getLong(POS_SOMA_VERSOES) == somaVersoesBanco;
+    }
+
+    synchronized void gravado(Produto produto) {
+        int id = produto.getId();
+        String nome = produto.getNome();
+        double preco = produto.getPreco();
+        int estoque = produto.getEstoque();
+        int versao = produto.getVersao();
+        aplicar(() -> gravar(id, nome, preco, estoque, versao));
+    }
+
+    synchronized void gravadosTodos(Collection<Produto> produtos) {
+        for (Produto produto : produtos) {
+            gravado(produto);
+        }
+    }
+
+    /**
+     * Só o estoque e a versão mudaram (o nome não é regravado). Ajustes simultâneos podem
+     * chegar aqui fora de ordem; vale o de versão mais nova.
+     */
+    synchronized void estoqueAjustado(int id, int estoque, int versao) {
+        aplicar(() -> {
+            int linha = buscarId(id);
+            int posicao = CABECALHO + linha * REGISTRO;
+            if (linha >= 0 && registros.getInt(posicao + VERSAO_PRODUTO) < versao) {
+                somarVersoes(versao - registros.getInt(posicao + VERSAO_PRODUTO));
+                registros.putInt(posicao + ESTOQUE, estoque);
+                registros.putInt(posicao + VERSAO_PRODUTO, versao);
+            }
+        });
+    }
+
+    synchronized void removido(int id) {
+        aplicar(() -> remover(id));
+    }
+
+    synchronized void removidosTodos(int[] ids) {
+        for (int id : ids) {
+            removido(id);
+        }
+    }
+
+    /**
+     * Começa a gravar uma cópia nova em arquivos temporários, ou devolve {@code null} se outra
+     * reconstrução já estiver em andamento. Até {@link Reconstrucao#concluir()}, que copia a nova
+     * sobre os arquivos atuais, a cópia atual continua servindo as leituras e as escritas ficam
+     * guardadas para serem reaplicadas.
+     */
+    synchronized Reconstrucao reconstruir() throws IOException {
+        if (pendentes != null) {
+            return null;
+        }
+        Reconstrucao reconstrucao = new Reconstrucao();
+        pendentes = new ArrayList<>();
+        return reconstrucao;
+    }
+
+    private void aplicar(Runnable escrita) {
+        if (pendentes != null) {
+            pendentes.add(escrita);
+        } else if (valido) {
+            try {
+                escrita.run();
+            } catch (RuntimeException e) {
+                // Ex.: disco cheio ao crescer o arquivo; a cópia deixa de valer até ser reconstruída
+                System.err.println("Erro ao atualizar cópia dos produtos: " + e.getMessage());
+                valido = false;
+            }
+        }
+    }
+
+    // Inserção ou atualização pelo id; ids novos são sempre os maiores, então a inserção
+    // normalmente só acrescenta no fim
+    private void gravar(int id, String nome, double preco, int estoque, int versao) {
+        int linha = buscarId(id);
+        int contagem = contagem();
+        if (linha < 0) {
+            linha = -linha - 1;
+            garantirRegistros(contagem + 1);
+            int posicao = CABECALHO + linha * REGISTRO;
+            registros.put(posicao + REGISTRO, registros, posicao, (contagem - linha) * REGISTRO);
+            registros.putInt(POS_CONTAGEM, contagem + 1);
+            somarVersoes(versao);
+        } else {
+            descartarNome(linha);
+            somarVersoes(versao - registros.getInt(CABECALHO + linha * REGISTRO + VERSAO_PRODUTO));
+        }
+        int posicao = CABECALHO + linha * REGISTRO;
+        registros.putInt(posicao + ID, id);
+        registros.putInt(posicao + ESTOQUE, estoque);
+        registros.putDouble(posicao + PRECO, preco);
+        byte[] bytes = nome.getBytes(StandardCharsets.UTF_8);
+        registros.putLong(posicao + NOME_INICIO, acrescentarNome(bytes));
+        registros.putInt(posicao + NOME_TAMANHO, bytes.length);
+        registros.putInt(posicao + VERSAO_PRODUTO, versao);
+        compactarNomesSeNecessario();
+    }
+
+    private void remover(int id) {
+        int linha = buscarId(id);
+        if (linha < 0) {
+            return;
+        }
+        descartarNome(linha);
+        int contagem = contagem();
+        int posicao = CABECALHO + linha * REGISTRO;
+        somarVersoes(-registros.getInt(posicao + VERSAO_PRODUTO));
+        registros.put(posicao, registros, posicao + REGISTRO, (contagem - linha - 1) * REGISTRO);
+        registros.putInt(POS_CONTAGEM, contagem - 1);
+        compactarNomesSeNecessario();
+    }
+
+    private void descartarNome(int linha) {
+        int tamanho = registros.getInt(CABECALHO + linha * REGISTRO + NOME_TAMANHO);
+        registros.putLong(POS_NOMES_SEM_USO, registros.getLong(POS_NOMES_SEM_USO) + tamanho);
+    }
+
+    private void somarVersoes(long diferenca) {
+        registros.putLong(POS_SOMA_VERSOES, registros.getLong(POS_SOMA_VERSOES) + diferenca);
+    }
+
+    private long acrescentarNome(byte[] bytes) {
+        long inicio = registros.getLong(POS_BYTES_NOMES);
+        garantirNomes(inicio + bytes.length);
+        nomes.put((int) inicio, bytes);
+        registros.putLong(POS_BYTES_NOMES, inicio + bytes.length);
+        return inicio;
+    }
+
+    private void garantirRegistros(int contagem) {
+        long necessario = CABECALHO + (long) contagem * REGISTRO;
+        if (necessario > registros.capacity()) {
+            registros = remapear(canal, registros.capacity(), necessario);
+        }
+    }
+
+    private void garantirNomes(long necessario) {
+        if (necessario > nomes.capacity()) {
+            nomes = remapear(canalNomes, nomes.capacity(), necessario);
+        }
+    }
+
+    // O mapeamento anterior é liberado pelo coletor quando não houver mais referências a ele
+    private static MappedByteBuffer remapear(FileChannel canal, long atual, long necessario) {
+        long novo = Math.max(necessario, atual * 2);
+        if (novo > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Cópia dos produtos passou de 2 GB");
+        }
+        try {
+            return canal.map(FileChannel.MapMode.READ_WRITE, 0, novo);
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    // Os nomes são copiados em ordem de posição no arquivo: cada um só anda para trás, sobre
+    // bytes já copiados ou sem uso
+    private void compactarNomesSeNecessario() {
+        long semUso = registros.getLong(POS_NOMES_SEM_USO);
+        if (semUso < MIN_NOMES_SEM_USO || semUso * 2 < registros.getLong(POS_BYTES_NOMES)) {
+            return;
+        }
+        int contagem = contagem();
+        long[] ordem = new long[contagem]; // início do nome nos 32 bits altos, linha nos baixos
+        for (int linha = 0; linha < contagem; linha++) {
+            ordem[linha] = registros.getLong(CABECALHO + linha * REGISTRO + NOME_INICIO) << 32 | linha;
+        }
+        Arrays.sort(ordem);
+        int escrito = 0;
+        for (long chave : ordem) {
+            int posicao = CABECALHO + (int) chave * REGISTRO;
+            int tamanho = registros.getInt(posicao + NOME_TAMANHO);
+            nomes.put(escrito, nomes, (int) (chave >>> 32), tamanho);
+            registros.putLong(posicao + NOME_INICIO, escrito);
+            escrito += tamanho;
+        }
+        registros.putLong(POS_BYTES_NOMES, escrito);
+        registros.putLong(POS_NOMES_SEM_USO, 0);
+    }
+
+    private int posicao(int linha) {
+        if (linha < 0 || linha >= contagem()) {
+            throw new IndexOutOfBoundsException(linha);
+        }
+        return CABECALHO + linha * REGISTRO;
+    }
+
+    private void abrirCanais() throws IOException {
+        canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        canalNomes = FileChannel.open(arquivoNomes, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    private void mapear() throws IOException {
+        registros = canal.map(FileChannel.MapMode.READ_WRITE, 0, canal.size());
+        nomes = canalNomes.map(FileChannel.MapMode.READ_WRITE, 0, canalNomes.size());
+    }
+
+    private synchronized void fechar() {
+        if (valido && pendentes == null) {
+            registros.putInt(POS_ESTADO, LIMPO);
+            nomes.force();
+            registros.force();
+        }
+        fecharCanais();
+        fecharCanal(canalTrava);
+        valido = false;
+    }
+
+    private static void fecharCanal(FileChannel canal) {
+        if (canal != null) {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                System.err.println("Erro ao fechar cópia dos produtos: " + e.getMessage());
+            }
+        }
+    }
+
+    private void fecharCanais() {
+        fecharCanal(canal);
+        fecharCanal(canalNomes);
+        canal = null;
+        canalNomes = null;
+        registros = null;
+        nomes = null;
+    }
+
+    /**
+     * Gravação sequencial de uma cópia nova, em ordem de id.
+     */
+    final class Reconstrucao implements AutoCloseable {
+        private final Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        private final Path temporarioNomes = arquivoNomes.resolveSibling(arquivoNomes.getFileName() + ".tmp");
+        private final FileChannel destino;
+        private final FileChannel destinoNomes;
+        private final ByteBuffer bufferRegistros = ByteBuffer.allocateDirect(1 << 16);
+        private final ByteBuffer bufferNomes = ByteBuffer.allocateDirect(1 << 16);
+        private int contagem;
+        private long bytesNomes;
+        private long somaVersoes;
+        private boolean concluida;
+
+        private Reconstrucao() throws IOException {
+            destino = FileChannel.open(temporario, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            destinoNomes = FileChannel.open(temporarioNomes, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            bufferRegistros.position(CABECALHO); // o cabeçalho é gravado no fim
+        }
+
+        void acrescentar(int id, String nome, double preco, int estoque, int versao) throws IOException {
+            byte[] bytes = nome.getBytes(StandardCharsets.UTF_8);
+            somaVersoes += versao;
+            if (bufferRegistros.remaining() < REGISTRO) {
+                descarregar(destino, bufferRegistros);
+            }
+            bufferRegistros.putInt(id).putInt(estoque).putDouble(preco).putLong(bytesNomes)
+                    .putInt(bytes.length).putInt(versao);
+            if (bufferNomes.remaining() < bytes.length) {
+                descarregar(destinoNomes, bufferNomes);
+                if (bytes.length > bufferNomes.capacity()) {
+                    destinoNomes.write(ByteBuffer.wrap(bytes));
+                    bytesNomes += bytes.length;
+                    contagem++;
+                    return;
+                }
+            }
+            bufferNomes.put(bytes);
+            bytesNomes += bytes.length;
+            contagem++;
+        }
+
+        /**
+         * Copia a cópia nova sobre os arquivos atuais e reaplica as escritas que chegaram durante
+         * a gravação. O cabeçalho copiado já vem marcado como aberto: se o programa cair no meio
+         * da cópia, ela é descartada na próxima abertura.
+         */
+        void concluir() throws IOException {
+            descarregar(destino, bufferRegistros);
+            descarregar(destinoNomes, bufferNomes);
+            ByteBuffer cabecalho = ByteBuffer.allocate(CABECALHO);
+            cabecalho.putInt(MAGICO).putInt(VERSAO).putInt(ABERTO).putInt(contagem).putLong(bytesNomes).putLong(0)
+                    .putLong(somaVersoes);
+            cabecalho.flip();
+            destino.write(cabecalho, 0);
+
+            synchronized (InstantaneoProdutos.this) {
+                if (canal == null) {
+                    abrirCanais();
+                }
+                copiar(destinoNomes, canalNomes);
+                copiar(destino, canal);
+                mapear();
+                garantirRegistros(Math.max(contagem, CAPACIDADE_INICIAL / REGISTRO));
+                garantirNomes(Math.max(bytesNomes, CAPACIDADE_INICIAL));
+                valido = true;
+                List<Runnable> escritas = pendentes;
+                pendentes = null;
+                escritas.forEach(InstantaneoProdutos.this::aplicar);
+                concluida = true;
+            }
+            descartarTemporarios();
+        }
+
+        /**
+         * Sem {@link #concluir()}, descarta a cópia nova e as escritas guardadas; a atual deixa de
+         * valer, pois pode ter perdido escritas.
+         */
+        @Override
+        public void close() {
+            if (concluida) {
+                return;
+            }
+            descartarTemporarios();
+            synchronized (InstantaneoProdutos.this) {
+                pendentes = null;
+                valido = false;
+            }
+        }
+
+        private void descartarTemporarios() {
+            try {
+                destino.close();
+                destinoNomes.close();
+                Files.deleteIfExists(temporario);
+                Files.deleteIfExists(temporarioNomes);
+            } catch (IOException e) {
+                System.err.println("Erro ao descartar cópia dos produtos: " + e.getMessage());
+            }
+        }
+
+        // Sem truncar: o arquivo pode continuar mapeado por leituras anteriores
+        private void copiar(FileChannel origem, FileChannel canal) throws IOException {
+            long tamanho = origem.size();
+            canal.position(0);
+            for (long copiado = 0; copiado < tamanho; ) {
+                copiado += origem.transferTo(copiado, tamanho - copiado, canal);
+            }
+        }
+
+        private void descarregar(FileChannel canal, ByteBuffer buffer) throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
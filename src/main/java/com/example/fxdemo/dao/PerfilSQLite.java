@@ -0,0 +1,37 @@
+package com.example.fxdemo.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Pragmas de desempenho do SQLite. O modo WAL fica gravado no arquivo do banco e permite
+ * leituras concorrentes com uma escrita; os demais valem por conexão e são aplicados
+ * a cada conexão que o pool abre.
+ */
+public final class PerfilSQLite {
+    private static final String[] PRAGMAS_CONEXAO = {
+            "PRAGMA synchronous = NORMAL",
+            "PRAGMA cache_size = -16000",     // 16 MB de cache de páginas
+            "PRAGMA mmap_size = 268435456",   // 256 MB mapeados em memória
+            "PRAGMA temp_store = MEMORY",
+            "PRAGMA busy_timeout = 5000"
+    };
+
+    private PerfilSQLite() {
+    }
+
+    public static void aplicarNoBanco(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA journal_mode = WAL");
+        }
+    }
+
+    public static void aplicarNaConexao(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String pragma : PRAGMAS_CONEXAO) {
+                stmt.execute(pragma);
+            }
+        }
+    }
+}
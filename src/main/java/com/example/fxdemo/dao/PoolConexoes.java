@@ -0,0 +1,156 @@
+package com.example.fxdemo.dao;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool pequeno e limitado de conexões JDBC reaproveitadas, um por URL.
+ * O tamanho pode ser ajustado com {@code -Dfxdemo.pool.tamanho=N}.
+ */
+public class PoolConexoes {
+    private static final int TAMANHO_PADRAO = Integer.getInteger("fxdemo.pool.tamanho", 4);
+    private static final long ESPERA_MAXIMA_MS = 30_000;
+    private static final int TIMEOUT_VALIDACAO_SEGUNDOS = 1;
+
+    private static final Map<String, PoolConexoes> POOLS = new ConcurrentHashMap<>();
+
+    private final String url;
+    private final int tamanho;
+    private final LinkedBlockingDeque<ConexaoFisica> livres = new LinkedBlockingDeque<>();
+    private final AtomicInteger abertas = new AtomicInteger();
+    private volatile boolean fechado;
+
+    public PoolConexoes(String url, int tamanho) {
+        if (tamanho < 1) {
+            throw new IllegalArgumentException("O pool precisa de pelo menos uma conexão");
+        }
+        this.url = url;
+        this.tamanho = tamanho;
+    }
+
+    public static PoolConexoes de(String url) {
+        return POOLS.computeIfAbsent(url, u -> new PoolConexoes(u, TAMANHO_PADRAO));
+    }
+
+    public static void fecharTodos() {
+        POOLS.values().forEach(PoolConexoes::fechar);
+        POOLS.clear();
+    }
+
+    public ConexaoPool emprestar() throws SQLException {
+        if (fechado) {
+            throw new SQLException("Pool de conexões fechado: " + url);
+        }
+
+        // LIFO: a conexão usada por último é a que tem o cache do SQLite mais quente
+        ConexaoFisica conn = livres.pollFirst();
+        while (true) {
+            if (conn == null) {
+                if (abertas.incrementAndGet() <= tamanho) {
+                    try {
+                        return new ConexaoPool(this, abrir());
+                    } catch (SQLException e) {
+                        abertas.decrementAndGet();
+                        throw e;
+                    }
+                }
+                abertas.decrementAndGet();
+                conn = aguardarLivre();
+            }
+
+            if (validar(conn)) {
+                return new ConexaoPool(this, conn);
+            }
+            descartar(conn);
+            conn = livres.pollFirst();
+        }
+    }
+
+    void devolver(ConexaoFisica fisica) {
+        if (fechado) {
+            descartar(fisica);
+            return;
+        }
+        try {
+            Connection conn = fisica.getConexao();
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+            livres.offerFirst(fisica);
+        } catch (SQLException e) {
+            System.err.println("Erro ao devolver conexão ao pool: " + e.getMessage());
+            descartar(fisica);
+        }
+    }
+
+    public void fechar() {
+        fechado = true;
+        ConexaoFisica conn;
+        while ((conn = livres.pollFirst()) != null) {
+            descartar(conn);
+        }
+    }
+
+    public int getTamanho() {
+        return tamanho;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    protected Connection abrirConexao() throws SQLException {
+        Connection conn = DriverManager.getConnection(url);
+        if (url.startsWith("jdbc:sqlite:")) {
+            try {
+                PerfilSQLite.aplicarNaConexao(conn);
+            } catch (SQLException e) {
+                conn.close();
+                throw e;
+            }
+        }
+        return conn;
+    }
+
+    private ConexaoFisica abrir() throws SQLException {
+        return new ConexaoFisica(abrirConexao());
+    }
+
+    private ConexaoFisica aguardarLivre() throws SQLException {
+        try {
+            ConexaoFisica conn = livres.pollFirst(ESPERA_MAXIMA_MS, TimeUnit.MILLISECONDS);
+            if (conn == null) {
+                throw new SQLException("Tempo esgotado aguardando conexão livre: " + url);
+            }
+            return conn;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompido aguardando conexão livre", e);
+        }
+    }
+
+    private boolean validar(ConexaoFisica fisica) {
+        try {
+            Connection conn = fisica.getConexao();
+            return !conn.isClosed() && conn.isValid(TIMEOUT_VALIDACAO_SEGUNDOS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void descartar(ConexaoFisica conn) {
+        abertas.decrementAndGet();
+        try {
+            conn.fechar();
+        } catch (SQLException e) {
+            System.err.println("Erro ao fechar conexão: " + e.getMessage());
+        }
+    }
+}
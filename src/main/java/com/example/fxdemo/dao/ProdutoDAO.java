@@ -2,59 +2,256 @@ package com.example.fxdemo.dao;
 
 import com.example.fxdemo.model.Produto;
 
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
-public class ProdutoDAO {
-    private static final String DB_URL = "jdbc:sqlite:produtos.db";
+public class ProdutoDAO implements RepositorioProdutos {
+    static final String DB_URL = "jdbc:sqlite:produtos.db";
+
+    private static final int TAMANHO_LOTE_PADRAO = Integer.getInteger("fxdemo.lote.tamanho", 1000);
+    // Cópia mapeada da tabela para abrir a tela sem consultar o banco (-Dfxdemo.instantaneo=false desliga)
+    private static final boolean INSTANTANEO_ATIVO =
+            Boolean.parseBoolean(System.getProperty("fxdemo.instantaneo", "true"));
+
+    // Buscas por índice. O índice de nome usa COLLATE NOCASE, como o LIKE (que ignora
+    // maiúsculas no ASCII), para o SQLite transformar o prefixo em uma faixa do índice
+    private static final String SQL_BUSCA_NOME =
+            "SELECT * FROM produtos WHERE nome LIKE ? ESCAPE '\\' ORDER BY nome COLLATE NOCASE, id LIMIT ?";
+    private static final String SQL_BUSCA_PRECO =
+            "SELECT * FROM produtos WHERE preco BETWEEN ? AND ? ORDER BY preco, id LIMIT ?";
+    private static final String SQL_BUSCA_ESTOQUE =
+            "SELECT * FROM produtos WHERE estoque < ? ORDER BY estoque, id LIMIT ?";
+    // Busca por palavras (FTS5). Acima de LIMITE_RELEVANCIA resultados, ordenar por relevância
+    // exigiria pontuar todos eles; a busca então segue a ordem de id, que não precisa disso
+    private static final int LIMITE_RELEVANCIA = 5000;
+    private static final String SQL_CONTA_TEXTO =
+            "SELECT COUNT(*) FROM (SELECT rowid FROM produtos_fts WHERE produtos_fts MATCH ? LIMIT ?)";
+    private static final String SQL_BUSCA_TEXTO = "SELECT p.* FROM produtos_fts f JOIN produtos p ON p.id = f.rowid"
+            + " WHERE produtos_fts MATCH ? ORDER BY f.rank LIMIT ? OFFSET ?";
+    private static final String SQL_BUSCA_TEXTO_POR_ID = "SELECT p.* FROM produtos_fts f JOIN produtos p ON p.id = f.rowid"
+            + " WHERE produtos_fts MATCH ? ORDER BY f.rowid LIMIT ? OFFSET ?";
+    // Atualização com controle de versão: só grava se ninguém gravou desde a leitura
+    private static final String SQL_ATUALIZA = "UPDATE produtos SET nome = ?, preco = ?, estoque = ?,"
+            + " versao = versao + 1 WHERE id = ? AND versao = ?";
+    // Movimento de estoque: a soma é feita pelo próprio banco, sem ler o produto antes, e
+    // recusada se o resultado sair de 0..Integer.MAX_VALUE. A versão sobe, como em toda escrita
+    private static final String SQL_AJUSTA_ESTOQUE = "UPDATE produtos SET estoque = estoque + ?1,"
+            + " versao = versao + 1 WHERE id = ?2 AND estoque + ?1 BETWEEN 0 AND 2147483647"
+            + " RETURNING estoque, versao";
+    private static final String SQL_GATILHO_INSERCAO_TEXTO = "CREATE TRIGGER IF NOT EXISTS produtos_fts_ai"
+            + " AFTER INSERT ON produtos BEGIN INSERT INTO produtos_fts(rowid, nome) VALUES (new.id, new.nome); END";
+    // A partir deste tamanho, inserirTodos indexa os nomes de uma vez no fim (INSERT ... SELECT),
+    // cerca de 7 vezes mais rápido que o gatilho linha a linha
+    private static final int LIMITE_INDEXACAO_NO_FIM = 5000;
+    // Bancos cujos planos de busca já foram conferidos
+    private static final Set<String> PLANOS_CONFERIDOS = ConcurrentHashMap.newKeySet();
+
+    private final PoolConexoes pool;
+    private final InstantaneoProdutos instantaneo;
+    private int tamanhoLote = TAMANHO_LOTE_PADRAO;
 
     public ProdutoDAO() {
+        this(DB_URL);
+    }
+
+    public ProdutoDAO(String url) {
+        this(url, INSTANTANEO_ATIVO);
+    }
+
+    /**
+     * Com {@code comInstantaneo} falso, não abre a cópia mapeada da tabela (ex.: ferramentas de
+     * linha de comando, que rodam junto com a aplicação e não precisam dela).
+     */
+    public ProdutoDAO(String url, boolean comInstantaneo) {
+        this.pool = PoolConexoes.de(url);
+        this.instantaneo = comInstantaneo ? InstantaneoProdutos.paraUrl(url) : null;
         criarTabela();
     }
 
+    /**
+     * Cópia da tabela em arquivo mapeado, mantida em dia pelas escritas deste DAO, ou
+     * {@code null} se desligada ou se o banco não for um arquivo. Pode estar inválida até a
+     * primeira chamada a {@link #sincronizarInstantaneo()}.
+     */
+    public InstantaneoProdutos instantaneo() {
+        return instantaneo;
+    }
+
+    /**
+     * Confere a cópia com o banco (contagem, maior id e soma das versões) e a reconstrói se não
+     * bater.
+     * Devolve se houve reconstrução. Deve rodar fora da thread da interface.
+     */
+    public boolean sincronizarInstantaneo() {
+        if (instantaneo == null) {
+            return false;
+        }
+        String sql = "SELECT COUNT(*), COALESCE(MAX(id), 0), COALESCE(SUM(versao), 0) FROM produtos";
+        try (ConexaoPool conn = pool.emprestar()) {
+            try (ResultSet rs = conn.preparar(sql).executeQuery()) {
+                if (rs.next() && instantaneo.confere(rs.getInt(1), rs.getInt(2), rs.getLong(3))) {
+                    return false;
+                }
+            }
+            try (InstantaneoProdutos.Reconstrucao reconstrucao = instantaneo.reconstruir()) {
+                if (reconstrucao == null) {
+                    return false; // outra thread já está reconstruindo
+                }
+                try (ResultSet rs = conn.preparar("SELECT id, nome, preco, estoque, versao FROM produtos ORDER BY id")
+                        .executeQuery()) {
+                    while (rs.next()) {
+                        reconstrucao.acrescentar(rs.getInt(1), rs.getString(2), rs.getDouble(3), rs.getInt(4),
+                                rs.getInt(5));
+                    }
+                }
+                reconstrucao.concluir();
+            }
+            return true;
+        } catch (SQLException | IOException e) {
+            System.err.println("Erro ao reconstruir cópia dos produtos: " + e.getMessage());
+        }
+        return false;
+    }
+
     private void criarTabela() {
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             Statement stmt = conn.createStatement()) {
+        try (ConexaoPool conn = pool.emprestar();
+             Statement stmt = conn.getConexao().createStatement()) {
             String sql = "CREATE TABLE IF NOT EXISTS produtos (" +
                     "id INTEGER PRIMARY KEY AUTOINCREMENT," +
                     "nome TEXT NOT NULL," +
                     "preco REAL NOT NULL," +
-                    "estoque INTEGER NOT NULL" +
+                    "estoque INTEGER NOT NULL," +
+                    "versao INTEGER NOT NULL DEFAULT 0" +
                     ")";
             stmt.execute(sql);
+            adicionarColunaVersao(stmt);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_produtos_nome ON produtos(nome COLLATE NOCASE)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_produtos_preco ON produtos(preco)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_produtos_estoque ON produtos(estoque)");
+            criarIndiceTexto(stmt);
+            PerfilSQLite.aplicarNoBanco(conn.getConexao());
+            if (PLANOS_CONFERIDOS.add(pool.getUrl())) {
+                conferirPlanos(conn);
+            }
         } catch (SQLException e) {
             System.err.println("Erro ao criar tabela: " + e.getMessage());
         }
     }
 
+    // Bancos criados antes do controle de versão: todos os produtos começam na versão 0
+    private static void adicionarColunaVersao(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM pragma_table_info('produtos') WHERE name = 'versao'")) {
+            if (rs.next()) {
+                return;
+            }
+        }
+        stmt.execute("ALTER TABLE produtos ADD COLUMN versao INTEGER NOT NULL DEFAULT 0");
+    }
+
+    /**
+     * Índice de texto (FTS5) sobre o nome, sem cópia dos dados (content='produtos') e mantido
+     * pelos gatilhos. Palavras são comparadas sem acentos nem maiúsculas; os prefixos de 2 e 3
+     * letras têm índice próprio para a busca enquanto se digita.
+     */
+    private static void criarIndiceTexto(Statement stmt) throws SQLException {
+        boolean novo;
+        try (ResultSet rs = stmt.executeQuery(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'produtos_fts'")) {
+            novo = !rs.next();
+        }
+        stmt.execute("CREATE VIRTUAL TABLE IF NOT EXISTS produtos_fts USING fts5(nome, content='produtos',"
+                + " content_rowid='id', tokenize='unicode61 remove_diacritics 2', prefix='2 3')");
+        stmt.execute(SQL_GATILHO_INSERCAO_TEXTO);
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS produtos_fts_ad AFTER DELETE ON produtos BEGIN"
+                + " INSERT INTO produtos_fts(produtos_fts, rowid, nome) VALUES ('delete', old.id, old.nome); END");
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS produtos_fts_au AFTER UPDATE OF nome ON produtos BEGIN"
+                + " INSERT INTO produtos_fts(produtos_fts, rowid, nome) VALUES ('delete', old.id, old.nome);"
+                + " INSERT INTO produtos_fts(rowid, nome) VALUES (new.id, new.nome); END");
+        if (novo) {
+            // Banco anterior ao índice: indexa os produtos que já existem (uma vez só)
+            stmt.execute("INSERT INTO produtos_fts(produtos_fts) VALUES ('rebuild')");
+        }
+    }
+
+    /**
+     * Roda EXPLAIN QUERY PLAN nas buscas e avisa se alguma delas percorre a tabela inteira em
+     * vez de usar o índice (ex.: índice apagado por fora ou LIKE sensível a maiúsculas ligado).
+     */
+    private void conferirPlanos(ConexaoPool conn) throws SQLException {
+        Map<String, Object[]> buscas = Map.of(
+                SQL_BUSCA_NOME, new Object[]{"a%", 1},
+                SQL_BUSCA_PRECO, new Object[]{0.0, 1.0, 1},
+                SQL_BUSCA_ESTOQUE, new Object[]{1, 1});
+        for (Map.Entry<String, Object[]> busca : buscas.entrySet()) {
+            String plano = planoDeConsulta(conn, busca.getKey(), busca.getValue());
+            if (!plano.contains("USING INDEX")) {
+                System.err.println("Busca sem índice (" + plano + "): " + busca.getKey());
+            }
+        }
+    }
+
+    /**
+     * Plano do SQLite para a consulta com esses parâmetros, uma linha por passo.
+     */
+    static String planoDeConsulta(ConexaoPool conn, String sql, Object... parametros) throws SQLException {
+        try (PreparedStatement pstmt = conn.getConexao().prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+            for (int i = 0; i < parametros.length; i++) {
+                pstmt.setObject(i + 1, parametros[i]);
+            }
+            StringBuilder plano = new StringBuilder();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (!plano.isEmpty()) {
+                        plano.append('\n');
+                    }
+                    plano.append(rs.getString("detail"));
+                }
+            }
+            return plano.toString();
+        }
+    }
+
+    /**
+     * Insere o produto e grava nele o id gerado.
+     */
     public void inserir(Produto produto) {
-        String sql = "INSERT INTO produtos(nome, preco, estoque) VALUES(?,?,?)";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, produto.getNome());
-            pstmt.setDouble(2, produto.getPreco());
-            pstmt.setInt(3, produto.getEstoque());
-            pstmt.executeUpdate();
+        try (ConexaoPool conn = pool.emprestar()) {
+            produto.setId(inserirEm(conn, produto));
+            produto.setVersao(0);
+            if (instantaneo != null) {
+                instantaneo.gravado(produto);
+            }
         } catch (SQLException e) {
             System.err.println("Erro ao inserir: " + e.getMessage());
         }
     }
 
+    // Só o INSERT, na transação em que a conexão estiver; devolve o id gerado
+    static int inserirEm(ConexaoPool conn, Produto produto) throws SQLException {
+        PreparedStatement pstmt = conn.preparar("INSERT INTO produtos(nome, preco, estoque) VALUES(?,?,?)");
+        pstmt.setString(1, produto.getNome());
+        pstmt.setDouble(2, produto.getPreco());
+        pstmt.setInt(3, produto.getEstoque());
+        pstmt.executeUpdate();
+        try (ResultSet rs = conn.preparar("SELECT last_insert_rowid()").executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
     public List<Produto> listarTodos() {
         List<Produto> produtos = new ArrayList<>();
         String sql = "SELECT * FROM produtos";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (ConexaoPool conn = pool.emprestar();
+             ResultSet rs = conn.preparar(sql).executeQuery()) {
             while (rs.next()) {
-                Produto produto = new Produto(
-                        rs.getInt("id"),
-                        rs.getString("nome"),
-                        rs.getDouble("preco"),
-                        rs.getInt("estoque")
-                );
-                produtos.add(produto);
+                produtos.add(lerProduto(rs));
             }
         } catch (SQLException e) {
             System.err.println("Erro ao listar: " + e.getMessage());
@@ -62,49 +259,547 @@ public class ProdutoDAO {
         return produtos;
     }
 
-    public void atualizar(Produto produto) {
-        String sql = "UPDATE produtos SET nome = ?, preco = ?, estoque = ? WHERE id = ?";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, produto.getNome());
-            pstmt.setDouble(2, produto.getPreco());
-            pstmt.setInt(3, produto.getEstoque());
-            pstmt.setInt(4, produto.getId());
-            pstmt.executeUpdate();
+    /**
+     * Grava o produto só se ele ainda estiver na versão lida ({@link Produto#getVersao()});
+     * em caso de sucesso, a nova versão é gravada no objeto. Em um conflito nada é alterado e
+     * o produto deve ser lido de novo.
+     */
+    public ResultadoAtualizacao atualizar(Produto produto) {
+        try (ConexaoPool conn = pool.emprestar()) {
+            if (atualizarEm(conn, produto)) {
+                produto.setVersao(produto.getVersao() + 1);
+                if (instantaneo != null) {
+                    instantaneo.gravado(produto);
+                }
+                return ResultadoAtualizacao.ATUALIZADO;
+            }
+            return conferirConflito(conn, produto.getId());
         } catch (SQLException e) {
             System.err.println("Erro ao atualizar: " + e.getMessage());
         }
+        return ResultadoAtualizacao.FALHA;
+    }
+
+    // Só o UPDATE com controle de versão; devolve se a linha foi gravada
+    static boolean atualizarEm(ConexaoPool conn, Produto produto) throws SQLException {
+        PreparedStatement pstmt = conn.preparar(SQL_ATUALIZA);
+        preencherAtualizacao(pstmt, produto);
+        return pstmt.executeUpdate() > 0;
+    }
+
+    // Nenhuma linha atualizada: o produto mudou de versão ou foi removido
+    private ResultadoAtualizacao conferirConflito(ConexaoPool conn, int id) throws SQLException {
+        Produto atual = buscarEm(conn, id);
+        conflitoConferido(id, atual);
+        return atual != null ? ResultadoAtualizacao.CONFLITO : ResultadoAtualizacao.REMOVIDO;
+    }
+
+    /**
+     * A cópia mapeada pode ter ficado para trás (escrita de outra instância), então recebe a
+     * linha atual lida depois de um conflito ({@code null} se o produto foi removido).
+     */
+    void conflitoConferido(int id, Produto atual) {
+        if (instantaneo != null) {
+            if (atual != null) {
+                instantaneo.gravado(atual);
+            } else {
+                instantaneo.removido(id);
+            }
+        }
+    }
+
+    /**
+     * Soma {@code delta} (positivo ou negativo) ao estoque do produto em uma única instrução
+     * atômica: movimentos simultâneos nunca se sobrescrevem, ao contrário de ler, somar e
+     * gravar com {@link #atualizar(Produto)}. O ajuste que deixaria o estoque negativo é
+     * recusado. A versão do produto sobe, então uma edição aberta antes dele dará conflito.
+     */
+    public ResultadoAjuste ajustarEstoque(int id, int delta) {
+        try (ConexaoPool conn = pool.emprestar()) {
+            int[] gravado = executarAjuste(conn, id, delta);
+            if (gravado == null) {
+                return motivoDaRecusa(conn, id);
+            }
+            if (instantaneo != null) {
+                instantaneo.estoqueAjustado(id, gravado[0], gravado[1]);
+            }
+            return ResultadoAjuste.AJUSTADO;
+        } catch (SQLException e) {
+            System.err.println("Erro ao ajustar estoque: " + e.getMessage());
+        }
+        return ResultadoAjuste.FALHA;
+    }
+
+    /**
+     * Como {@link #ajustarEstoque(int, int)}, para vários produtos (id → delta) em uma única
+     * transação; os ajustes recusados não impedem os demais. Devolve os que não foram
+     * aplicados, com o motivo: vazio se todos foram, todos com {@code FALHA} se a transação
+     * falhou.
+     */
+    public Map<Integer, ResultadoAjuste> ajustarEstoqueTodos(Map<Integer, Integer> deltas) {
+        Map<Integer, ResultadoAjuste> recusados = new HashMap<>();
+        try (ConexaoPool conn = pool.emprestar()) {
+            Connection c = conn.getConexao();
+            c.setAutoCommit(false);
+            try {
+                List<int[]> gravados = new ArrayList<>(deltas.size());
+                for (Map.Entry<Integer, Integer> ajuste : deltas.entrySet()) {
+                    int id = ajuste.getKey();
+                    int[] gravado = executarAjuste(conn, id, ajuste.getValue());
+                    if (gravado == null) {
+                        recusados.put(id, motivoDaRecusa(conn, id));
+                    } else {
+                        gravados.add(new int[]{id, gravado[0], gravado[1]});
+                    }
+                }
+                c.commit();
+                if (instantaneo != null) {
+                    for (int[] gravado : gravados) {
+                        instantaneo.estoqueAjustado(gravado[0], gravado[1], gravado[2]);
+                    }
+                }
+                return recusados;
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Erro ao ajustar estoque em lote: " + e.getMessage());
+        }
+        recusados.clear();
+        for (Integer id : deltas.keySet()) {
+            recusados.put(id, ResultadoAjuste.FALHA);
+        }
+        return recusados;
+    }
+
+    // Novo estoque e nova versão, ou null se o ajuste foi recusado (ou o produto não existe)
+    static int[] executarAjuste(ConexaoPool conn, int id, int delta) throws SQLException {
+        PreparedStatement pstmt = conn.preparar(SQL_AJUSTA_ESTOQUE);
+        pstmt.setInt(1, delta);
+        pstmt.setInt(2, id);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? new int[]{rs.getInt(1), rs.getInt(2)} : null;
+        }
+    }
+
+    static ResultadoAjuste motivoDaRecusa(ConexaoPool conn, int id) throws SQLException {
+        PreparedStatement pstmt = conn.preparar("SELECT 1 FROM produtos WHERE id = ?");
+        pstmt.setInt(1, id);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? ResultadoAjuste.ESTOQUE_INSUFICIENTE : ResultadoAjuste.REMOVIDO;
+        }
     }
 
     public void deletar(int id) {
-        String sql = "DELETE FROM produtos WHERE id = ?";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, id);
-            pstmt.executeUpdate();
+        try (ConexaoPool conn = pool.emprestar()) {
+            deletarEm(conn, id);
+            if (instantaneo != null) {
+                instantaneo.removido(id);
+            }
         } catch (SQLException e) {
             System.err.println("Erro ao deletar: " + e.getMessage());
         }
     }
 
+    static void deletarEm(ConexaoPool conn, int id) throws SQLException {
+        PreparedStatement pstmt = conn.preparar("DELETE FROM produtos WHERE id = ?");
+        pstmt.setInt(1, id);
+        pstmt.executeUpdate();
+    }
+
     public Produto buscarPorId(int id) {
-        String sql = "SELECT * FROM produtos WHERE id = ?";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, id);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return new Produto(
-                        rs.getInt("id"),
-                        rs.getString("nome"),
-                        rs.getDouble("preco"),
-                        rs.getInt("estoque")
-                );
-            }
+        try (ConexaoPool conn = pool.emprestar()) {
+            return buscarEm(conn, id);
         } catch (SQLException e) {
             System.err.println("Erro ao buscar: " + e.getMessage());
         }
         return null;
     }
-}
 
+    static Produto buscarEm(ConexaoPool conn, int id) throws SQLException {
+        PreparedStatement pstmt = conn.preparar("SELECT * FROM produtos WHERE id = ?");
+        pstmt.setInt(1, id);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? lerProduto(rs) : null;
+        }
+    }
+
+    /**
+     * Paginação por chave: devolve até {@code limite} produtos com id maior que {@code aposId},
+     * em ordem de id. Usa o índice da chave primária, sem o custo crescente de OFFSET.
+     */
+    public List<Produto> listarPagina(int aposId, int limite) {
+        List<Produto> produtos = new ArrayList<>(limite);
+        String sql = "SELECT * FROM produtos WHERE id > ? ORDER BY id LIMIT ?";
+        try (ConexaoPool conn = pool.emprestar()) {
+            PreparedStatement pstmt = conn.preparar(sql);
+            pstmt.setInt(1, aposId);
+            pstmt.setInt(2, limite);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    produtos.add(lerProduto(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erro ao listar página: " + e.getMessage());
+        }
+        return produtos;
+    }
+
+    /**
+     * Até {@code limite} produtos cujo nome começa com o prefixo, sem diferenciar maiúsculas
+     * (só letras ASCII), em ordem de nome. Usa o índice {@code idx_produtos_nome}.
+     */
+    public List<Produto> buscarPorNomePrefixo(String prefixo, int limite) {
+        // % e _ digitados são literais, não curingas
+        String padrao = prefixo.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return buscar(SQL_BUSCA_NOME, "Erro ao buscar por nome: ", padrao, limite);
+    }
+
+    /**
+     * Até {@code limite} produtos com preço entre {@code minimo} e {@code maximo} (inclusive),
+     * em ordem de preço. Usa o índice {@code idx_produtos_preco}.
+     */
+    public List<Produto> buscarPorFaixaDePreco(double minimo, double maximo, int limite) {
+        return buscar(SQL_BUSCA_PRECO, "Erro ao buscar por preço: ", minimo, maximo, limite);
+    }
+
+    /**
+     * Até {@code limite} produtos com estoque menor que {@code quantidade}, do menor estoque
+     * para o maior. Usa o índice {@code idx_produtos_estoque}.
+     */
+    public List<Produto> buscarEstoqueAbaixoDe(int quantidade, int limite) {
+        return buscar(SQL_BUSCA_ESTOQUE, "Erro ao buscar por estoque: ", quantidade, limite);
+    }
+
+    /**
+     * Uma página (base 0) dos produtos cujo nome tem palavras começando com cada palavra do
+     * texto, em qualquer ordem ("mou sem" acha "Mouse sem fio"), dos mais relevantes para os
+     * menos. Com muitos resultados, a ordem passa a ser a de id.
+     */
+    public List<Produto> buscarTexto(String texto, int pagina, int tamanhoPagina) {
+        return buscarTexto(texto, pagina, tamanhoPagina, new CancelamentoConsulta());
+    }
+
+    /**
+     * Como {@link #buscarTexto(String, int, int)}, podendo ser interrompida por
+     * {@link CancelamentoConsulta#cancelar()}; cancelada, devolve uma lista vazia.
+     */
+    public List<Produto> buscarTexto(String texto, int pagina, int tamanhoPagina, CancelamentoConsulta cancelamento) {
+        List<Produto> produtos = new ArrayList<>();
+        String expressao = expressaoDeBusca(texto);
+        if (expressao.isEmpty()) {
+            return produtos;
+        }
+        try (ConexaoPool conn = pool.emprestar()) {
+            PreparedStatement contar = conn.preparar(SQL_CONTA_TEXTO);
+            contar.setString(1, expressao);
+            contar.setInt(2, LIMITE_RELEVANCIA + 1);
+            int encontrados;
+            if (!cancelamento.iniciar(contar)) {
+                return produtos;
+            }
+            try (ResultSet rs = contar.executeQuery()) {
+                encontrados = rs.next() ? rs.getInt(1) : 0;
+            } finally {
+                cancelamento.concluir();
+            }
+            if (encontrados == 0) {
+                return produtos;
+            }
+
+            PreparedStatement pstmt = conn.preparar(
+                    encontrados <= LIMITE_RELEVANCIA ? SQL_BUSCA_TEXTO : SQL_BUSCA_TEXTO_POR_ID);
+            pstmt.setString(1, expressao);
+            pstmt.setInt(2, tamanhoPagina);
+            pstmt.setInt(3, pagina * tamanhoPagina);
+            if (!cancelamento.iniciar(pstmt)) {
+                return produtos;
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    produtos.add(lerProduto(rs));
+                }
+            } finally {
+                cancelamento.concluir();
+            }
+        } catch (SQLException e) {
+            if (cancelamento.isCancelada()) {
+                return new ArrayList<>();
+            }
+            System.err.println("Erro na busca por texto: " + e.getMessage());
+        }
+        return produtos;
+    }
+
+    // Cada palavra vai entre aspas, então o que o usuário digita nunca é sintaxe do FTS5. Só a
+    // última (a que ainda está sendo digitada) é prefixo: prefixos longos fora do índice de
+    // prefixos obrigam o FTS5 a juntar a lista inteira de linhas do termo antes de cruzá-la
+    static String expressaoDeBusca(String texto) {
+        StringBuilder expressao = new StringBuilder();
+        for (String palavra : texto.split("[^\\p{L}\\p{N}]+")) {
+            if (!palavra.isEmpty()) {
+                if (!expressao.isEmpty()) {
+                    expressao.append(' ');
+                }
+                expressao.append('"').append(palavra).append('"');
+            }
+        }
+        boolean digitandoUltima = !texto.isEmpty()
+                && Character.isLetterOrDigit(texto.charAt(texto.length() - 1));
+        if (digitandoUltima && !expressao.isEmpty()) {
+            expressao.append('*');
+        }
+        return expressao.toString();
+    }
+
+    private List<Produto> buscar(String sql, String mensagemErro, Object... parametros) {
+        List<Produto> produtos = new ArrayList<>();
+        try (ConexaoPool conn = pool.emprestar()) {
+            PreparedStatement pstmt = conn.preparar(sql);
+            for (int i = 0; i < parametros.length; i++) {
+                pstmt.setObject(i + 1, parametros[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    produtos.add(lerProduto(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println(mensagemErro + e.getMessage());
+        }
+        return produtos;
+    }
+
+    public int contar() {
+        String sql = "SELECT COUNT(*) FROM produtos";
+        try (ConexaoPool conn = pool.emprestar();
+             ResultSet rs = conn.preparar(sql).executeQuery()) {
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        } catch (SQLException e) {
+            System.err.println("Erro ao contar: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    /**
+     * Id do produto na posição informada (base 0, em ordem de id), ou 0 se não houver.
+     * Serve para achar o ponto de partida de uma página distante sem carregar as anteriores.
+     */
+    public int buscarIdNaPosicao(int posicao) {
+        String sql = "SELECT id FROM produtos ORDER BY id LIMIT 1 OFFSET ?";
+        try (ConexaoPool conn = pool.emprestar()) {
+            PreparedStatement pstmt = conn.preparar(sql);
+            pstmt.setInt(1, posicao);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erro ao buscar posição: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    /**
+     * Insere todos os produtos em uma única transação, enviando os INSERTs em lotes de
+     * {@link #getTamanhoLote()}. Os ids gerados são gravados de volta nos objetos.
+     * Devolve se a transação foi gravada (em caso de erro, nada é inserido).
+     * <p>
+     * Em lotes grandes, o gatilho que indexa cada nome na busca por palavras é retirado durante a
+     * transação e os nomes novos são indexados de uma vez antes do commit. Como o SQLite aplica
+     * alterações de esquema dentro da transação, as outras conexões nunca ficam sem o gatilho.
+     */
+    public boolean inserirTodos(Collection<Produto> produtos) {
+        String sql = "INSERT INTO produtos(nome, preco, estoque) VALUES(?,?,?)";
+        boolean indexarNoFim = produtos.size() >= LIMITE_INDEXACAO_NO_FIM;
+        try (ConexaoPool conn = pool.emprestar()) {
+            Connection c = conn.getConexao();
+            c.setAutoCommit(false);
+            try {
+                if (indexarNoFim) {
+                    try (Statement stmt = c.createStatement()) {
+                        stmt.execute("DROP TRIGGER IF EXISTS produtos_fts_ai");
+                    }
+                }
+                PreparedStatement pstmt = conn.preparar(sql);
+                List<Produto> lote = new ArrayList<>(Math.min(tamanhoLote, produtos.size()));
+                for (Produto produto : produtos) {
+                    pstmt.setString(1, produto.getNome());
+                    pstmt.setDouble(2, produto.getPreco());
+                    pstmt.setInt(3, produto.getEstoque());
+                    pstmt.addBatch();
+                    lote.add(produto);
+                    if (lote.size() == tamanhoLote) {
+                        executarLoteInsercao(conn, pstmt, lote);
+                    }
+                }
+                if (!lote.isEmpty()) {
+                    executarLoteInsercao(conn, pstmt, lote);
+                }
+                if (indexarNoFim) {
+                    indexarTexto(c, produtos);
+                }
+                c.commit();
+                if (instantaneo != null) {
+                    instantaneo.gravadosTodos(produtos);
+                }
+                return true;
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Erro ao inserir em lote: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Como {@link #atualizar(Produto)}, para todos os produtos em uma única transação.
+     * Os que estiverem em conflito (ou removidos) ficam como estão; devolve quantos foram
+     * gravados.
+     */
+    public int atualizarTodos(Collection<Produto> produtos) {
+        try (ConexaoPool conn = pool.emprestar()) {
+            Connection c = conn.getConexao();
+            c.setAutoCommit(false);
+            try {
+                PreparedStatement pstmt = conn.preparar(SQL_ATUALIZA);
+                List<Produto> lote = new ArrayList<>(Math.min(tamanhoLote, produtos.size()));
+                List<Produto> gravados = new ArrayList<>(produtos.size());
+                for (Produto produto : produtos) {
+                    preencherAtualizacao(pstmt, produto);
+                    pstmt.addBatch();
+                    lote.add(produto);
+                    if (lote.size() == tamanhoLote) {
+                        executarLoteAtualizacao(pstmt, lote, gravados);
+                    }
+                }
+                if (!lote.isEmpty()) {
+                    executarLoteAtualizacao(pstmt, lote, gravados);
+                }
+                c.commit();
+                // Só depois do commit: antes dele, um rollback desfaria as versões
+                for (Produto produto : gravados) {
+                    produto.setVersao(produto.getVersao() + 1);
+                }
+                if (instantaneo != null) {
+                    instantaneo.gravadosTodos(gravados);
+                }
+                return gravados.size();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Erro ao atualizar em lote: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    // Os ids de uma inserção em lote são consecutivos (ver executarLoteInsercao)
+    private static void indexarTexto(Connection c, Collection<Produto> inseridos) throws SQLException {
+        int primeiro = Integer.MAX_VALUE;
+        int ultimo = Integer.MIN_VALUE;
+        for (Produto produto : inseridos) {
+            primeiro = Math.min(primeiro, produto.getId());
+            ultimo = Math.max(ultimo, produto.getId());
+        }
+        try (PreparedStatement pstmt = c.prepareStatement(
+                "INSERT INTO produtos_fts(rowid, nome) SELECT id, nome FROM produtos WHERE id BETWEEN ? AND ?");
+             Statement stmt = c.createStatement()) {
+            pstmt.setInt(1, primeiro);
+            pstmt.setInt(2, ultimo);
+            pstmt.executeUpdate();
+            stmt.execute(SQL_GATILHO_INSERCAO_TEXTO);
+        }
+    }
+
+    private static void executarLoteAtualizacao(PreparedStatement pstmt, List<Produto> lote, List<Produto> gravados)
+            throws SQLException {
+        int[] linhas = pstmt.executeBatch();
+        for (int i = 0; i < linhas.length; i++) {
+            if (linhas[i] > 0) {
+                gravados.add(lote.get(i));
+            }
+        }
+        lote.clear();
+    }
+
+    private static void preencherAtualizacao(PreparedStatement pstmt, Produto produto) throws SQLException {
+        pstmt.setString(1, produto.getNome());
+        pstmt.setDouble(2, produto.getPreco());
+        pstmt.setInt(3, produto.getEstoque());
+        pstmt.setInt(4, produto.getId());
+        pstmt.setInt(5, produto.getVersao());
+    }
+
+    static Produto lerProduto(ResultSet rs) throws SQLException {
+        return new Produto(rs.getInt("id"), rs.getString("nome"), rs.getDouble("preco"), rs.getInt("estoque"),
+                rs.getInt("versao"));
+    }
+
+    public void deletarTodos(int[] ids) {
+        String sql = "DELETE FROM produtos WHERE id = ?";
+        try (ConexaoPool conn = pool.emprestar()) {
+            Connection c = conn.getConexao();
+            c.setAutoCommit(false);
+            try {
+                PreparedStatement pstmt = conn.preparar(sql);
+                int pendentes = 0;
+                for (int id : ids) {
+                    pstmt.setInt(1, id);
+                    pstmt.addBatch();
+                    if (++pendentes == tamanhoLote) {
+                        pstmt.executeBatch();
+                        pendentes = 0;
+                    }
+                }
+                if (pendentes > 0) {
+                    pstmt.executeBatch();
+                }
+                c.commit();
+                if (instantaneo != null) {
+                    instantaneo.removidosTodos(ids);
+                }
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Erro ao deletar em lote: " + e.getMessage());
+        }
+    }
+
+    public int getTamanhoLote() {
+        return tamanhoLote;
+    }
+
+    public void setTamanhoLote(int tamanhoLote) {
+        if (tamanhoLote < 1) {
+            throw new IllegalArgumentException("Tamanho de lote inválido: " + tamanhoLote);
+        }
+        this.tamanhoLote = tamanhoLote;
+    }
+
+    private void executarLoteInsercao(ConexaoPool conn, PreparedStatement pstmt, List<Produto> lote) throws SQLException {
+        pstmt.executeBatch();
+        // Dentro de uma única transação de escrita o AUTOINCREMENT gera ids consecutivos,
+        // então o último id do lote identifica todos os anteriores.
+        try (ResultSet rs = conn.preparar("SELECT last_insert_rowid()").executeQuery()) {
+            if (rs.next()) {
+                int id = rs.getInt(1) - lote.size() + 1;
+                for (Produto produto : lote) {
+                    produto.setId(id++);
+                    produto.setVersao(0);
+                }
+            }
+        }
+        lote.clear();
+    }
+}
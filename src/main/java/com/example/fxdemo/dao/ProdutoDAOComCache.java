@@ -0,0 +1,214 @@
+package com.example.fxdemo.dao;
+
+import com.example.fxdemo.model.Produto;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link ProdutoDAO} com cache de leitura em {@link #buscarPorId(int)}: um produto buscado
+ * fica em memória até ser alterado ou removido por este DAO, até expirar (tempo desde a
+ * carga) ou até ser despejado por falta de espaço (o usado há mais tempo sai primeiro).
+ * <p>
+ * O cache é dividido em segmentos pelo id, cada um com sua trava, para que leituras de
+ * threads diferentes raramente disputem a mesma. Os produtos devolvidos são cópias: alterar
+ * o objeto recebido não altera o cache. Escritas feitas por fora deste DAO (outro processo ou
+ * outra instância) só aparecem depois que a entrada expira.
+ */
+public class ProdutoDAOComCache extends ProdutoDAO {
+    private static final int CAPACIDADE_PADRAO = Integer.getInteger("fxdemo.cache.capacidade", 10_000);
+    private static final long TTL_PADRAO_SEGUNDOS = Long.getLong("fxdemo.cache.ttlSegundos", 60);
+    // Potência de 2: o segmento sai dos bits baixos do id espalhado
+    private static final int SEGMENTOS = 16;
+
+    private final Segmento[] segmentos = new Segmento[SEGMENTOS];
+    private final long ttlNanos;
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder faltas = new LongAdder();
+    private final LongAdder despejos = new LongAdder();
+    private final LongAdder expiracoes = new LongAdder();
+
+    /**
+     * Números do cache desde a criação.
+     */
+    public record Estatisticas(long acertos, long faltas, long despejos, long expiracoes, int tamanho) {
+        public double taxaDeAcerto() {
+            long total = acertos + faltas;
+            return total == 0 ? 0 : (double) acertos / total;
+        }
+    }
+
+    public ProdutoDAOComCache() {
+        super();
+        this.ttlNanos = Duration.ofSeconds(TTL_PADRAO_SEGUNDOS).toNanos();
+        criarSegmentos(CAPACIDADE_PADRAO);
+    }
+
+    public ProdutoDAOComCache(String url) {
+        this(url, CAPACIDADE_PADRAO, Duration.ofSeconds(TTL_PADRAO_SEGUNDOS));
+    }
+
+    public ProdutoDAOComCache(String url, int capacidade, Duration ttl) {
+        super(url);
+        if (capacidade < 1) {
+            throw new IllegalArgumentException("Capacidade de cache inválida: " + capacidade);
+        }
+        this.ttlNanos = ttl.toNanos();
+        criarSegmentos(capacidade);
+    }
+
+    private void criarSegmentos(int capacidade) {
+        int porSegmento = Math.max(1, (capacidade + SEGMENTOS - 1) / SEGMENTOS);
+        for (int i = 0; i < SEGMENTOS; i++) {
+            segmentos[i] = new Segmento(porSegmento);
+        }
+    }
+
+    @Override
+    public Produto buscarPorId(int id) {
+        Segmento segmento = segmento(id);
+        long agora = System.nanoTime();
+        long versao;
+        synchronized (segmento) {
+            Entrada entrada = segmento.entradas.get(id);
+            if (entrada != null) {
+                if (agora - entrada.carregadoEm() < ttlNanos) {
+                    acertos.increment();
+                    return copia(entrada.produto());
+                }
+                segmento.entradas.remove(id);
+                expiracoes.increment();
+            }
+            versao = segmento.versao;
+        }
+        faltas.increment();
+
+        // A consulta roda fora da trava; se o segmento foi invalidado nesse meio tempo, o
+        // resultado pode ser anterior à escrita e não é guardado
+        Produto produto = super.buscarPorId(id);
+        if (produto != null) {
+            synchronized (segmento) {
+                if (segmento.versao == versao) {
+                    segmento.entradas.put(id, new Entrada(copia(produto), agora));
+                }
+            }
+        }
+        return produto;
+    }
+
+    @Override
+    public ResultadoAtualizacao atualizar(Produto produto) {
+        invalidar(produto.getId());
+        ResultadoAtualizacao resultado = super.atualizar(produto);
+        invalidar(produto.getId());
+        return resultado;
+    }
+
+    @Override
+    public ResultadoAjuste ajustarEstoque(int id, int delta) {
+        invalidar(id);
+        ResultadoAjuste resultado = super.ajustarEstoque(id, delta);
+        invalidar(id);
+        return resultado;
+    }
+
+    @Override
+    public Map<Integer, ResultadoAjuste> ajustarEstoqueTodos(Map<Integer, Integer> deltas) {
+        deltas.keySet().forEach(this::invalidar);
+        Map<Integer, ResultadoAjuste> recusados = super.ajustarEstoqueTodos(deltas);
+        deltas.keySet().forEach(this::invalidar);
+        return recusados;
+    }
+
+    @Override
+    public void deletar(int id) {
+        invalidar(id);
+        super.deletar(id);
+        invalidar(id);
+    }
+
+    @Override
+    public int atualizarTodos(Collection<Produto> produtos) {
+        produtos.forEach(produto -> invalidar(produto.getId()));
+        int gravados = super.atualizarTodos(produtos);
+        produtos.forEach(produto -> invalidar(produto.getId()));
+        return gravados;
+    }
+
+    @Override
+    public void deletarTodos(int[] ids) {
+        for (int id : ids) {
+            invalidar(id);
+        }
+        super.deletarTodos(ids);
+        for (int id : ids) {
+            invalidar(id);
+        }
+    }
+
+    /**
+     * Tira o produto do cache (ex.: depois de alterá-lo por fora deste DAO).
+     */
+    public void invalidar(int id) {
+        Segmento segmento = segmento(id);
+        synchronized (segmento) {
+            segmento.entradas.remove(id);
+            segmento.versao++;
+        }
+    }
+
+    public void limparCache() {
+        for (Segmento segmento : segmentos) {
+            synchronized (segmento) {
+                segmento.entradas.clear();
+                segmento.versao++;
+            }
+        }
+    }
+
+    public Estatisticas estatisticas() {
+        int tamanho = 0;
+        for (Segmento segmento : segmentos) {
+            synchronized (segmento) {
+                tamanho += segmento.entradas.size();
+            }
+        }
+        return new Estatisticas(acertos.sum(), faltas.sum(), despejos.sum(), expiracoes.sum(), tamanho);
+    }
+
+    private Segmento segmento(int id) {
+        int h = id * 0x9E3779B9;
+        return segmentos[(h ^ (h >>> 16)) & (SEGMENTOS - 1)];
+    }
+
+    private static Produto copia(Produto produto) {
+        return new Produto(produto.getId(), produto.getNome(), produto.getPreco(), produto.getEstoque(),
+                produto.getVersao());
+    }
+
+    private record Entrada(Produto produto, long carregadoEm) {
+    }
+
+    // LinkedHashMap em ordem de acesso: o primeiro é o usado há mais tempo
+    private final class Segmento {
+        private final Map<Integer, Entrada> entradas;
+        // Incrementada a cada invalidação, para descartar cargas que começaram antes dela
+        private long versao;
+
+        Segmento(int capacidade) {
+            entradas = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Entrada> maisAntiga) {
+                    if (size() > capacidade) {
+                        despejos.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package com.example.fxdemo.dao;
+
+import com.example.fxdemo.model.Produto;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * {@link ProdutoDAO} com gravação agrupada ("write-behind" com "group commit"): inserções,
+ * atualizações, exclusões e ajustes de estoque entram em uma fila limitada e uma única thread
+ * as grava em grupos, cada grupo em uma transação. Um grupo leva o que chegou à fila enquanto o
+ * anterior era gravado, até {@code grupo} escritas; com {@code intervaloMs} maior que 0, o
+ * gravador ainda espera esse tempo depois da primeira por mais escritas. Em vez de um commit (e
+ * uma sincronização do disco) por chamada, há um por grupo: rajadas de escritas (leitores de
+ * código de barras, integrações) ganham vazão e o grupo cresce sozinho com a carga.
+ * <p>
+ * As variantes {@code ...Async} devolvem um futuro que completa depois do commit do grupo, já
+ * sincronizado com o disco ({@code synchronous = FULL} na conexão do gravador, própria dele);
+ * as versões síncronas esperam por ele. Com a fila cheia, quem chama fica bloqueado até abrir
+ * espaço. Se o grupo falhar, cada escrita dele é refeita sozinha, então só a que tem problema
+ * falha (o futuro completa com a {@link SQLException}). Os objetos de quem chama (id, versão) e a
+ * cópia mapeada só mudam depois do commit.
+ * <p>
+ * Leituras não passam pela fila: uma escrita assíncrona só aparece nelas depois que o futuro
+ * dela completa. Os métodos de lote já gravam em uma transação e vão direto ao banco, depois das
+ * escritas enfileiradas antes deles. {@link #close()} grava o que estiver na fila e para a
+ * thread; o que não tiver sido gravado se perde se o processo terminar antes.
+ */
+public class ProdutoDAOComGravacaoAgrupada extends ProdutoDAO implements AutoCloseable {
+    private static final int FILA_PADRAO = Integer.getInteger("fxdemo.gravacao.fila", 10_000);
+    private static final int GRUPO_PADRAO = Integer.getInteger("fxdemo.gravacao.grupo", 1000);
+    private static final long INTERVALO_PADRAO_MS = Long.getLong("fxdemo.gravacao.intervaloMs", 0);
+
+    // Colocada na fila por close(): o gravador termina depois de gravar o que veio antes dela
+    private static final Escrita<Void> FIM = new Escrita<>(conn -> null, resultado -> { });
+
+    private static ProdutoDAOComGravacaoAgrupada daAplicacao;
+
+    private final PoolConexoes poolGravador;
+    private final BlockingQueue<Escrita<?>> fila;
+    private final int tamanhoGrupo;
+    private final long intervaloNanos;
+    private final Thread gravador;
+    // Quem enfileira segura a leitura enquanto confere o fechamento e espera vaga; close() marca
+    // o fechamento com a escrita, então nada entra na fila depois do FIM
+    private final ReadWriteLock travaFechamento = new ReentrantReadWriteLock();
+    private volatile boolean fechado;
+    private final LongAdder escritas = new LongAdder();
+    private final LongAdder grupos = new LongAdder();
+    private final LongAdder gruposRefeitos = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+
+    /**
+     * Números da gravação desde a criação.
+     */
+    public record Estatisticas(long escritas, long grupos, long gruposRefeitos, long falhas, int naFila) {
+        public double escritasPorGrupo() {
+            return grupos == 0 ? 0 : (double) escritas / grupos;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Operacao<T> {
+        T executar(ConexaoPool conn) throws SQLException;
+    }
+
+    /**
+     * Uma escrita na fila: a operação roda na transação do grupo, sem efeito fora do banco; o
+     * que depende do commit (objeto de quem chamou, cópia mapeada) fica em {@code aoConfirmar}.
+     */
+    private static final class Escrita<T> {
+        final Operacao<T> operacao;
+        final Consumer<T> aoConfirmar;
+        final CompletableFuture<T> futuro = new CompletableFuture<>();
+        T resultado;
+
+        Escrita(Operacao<T> operacao, Consumer<T> aoConfirmar) {
+            this.operacao = operacao;
+            this.aoConfirmar = aoConfirmar;
+        }
+
+        void executar(ConexaoPool conn) throws SQLException {
+            resultado = operacao.executar(conn);
+        }
+
+        void confirmar() {
+            aoConfirmar.accept(resultado);
+            futuro.complete(resultado);
+        }
+    }
+
+    /**
+     * Instância compartilhada pelas telas da aplicação ({@code -Dfxdemo.repositorio=sqlite-agrupado}),
+     * criada no primeiro uso; {@link #fecharDaAplicacao()} a fecha ao sair.
+     */
+    public static synchronized ProdutoDAOComGravacaoAgrupada daAplicacao() {
+        if (daAplicacao == null) {
+            daAplicacao = new ProdutoDAOComGravacaoAgrupada();
+        }
+        return daAplicacao;
+    }
+
+    /**
+     * Grava o que estiver na fila da instância da aplicação e a fecha, se ela foi criada.
+     */
+    public static synchronized void fecharDaAplicacao() {
+        if (daAplicacao != null) {
+            daAplicacao.close();
+            daAplicacao = null;
+        }
+    }
+
+    public ProdutoDAOComGravacaoAgrupada() {
+        this(DB_URL);
+    }
+
+    public ProdutoDAOComGravacaoAgrupada(String url) {
+        this(url, FILA_PADRAO, GRUPO_PADRAO, INTERVALO_PADRAO_MS);
+    }
+
+    public ProdutoDAOComGravacaoAgrupada(String url, int capacidadeFila, int tamanhoGrupo, long intervaloMs) {
+        super(url);
+        if (capacidadeFila < 1 || tamanhoGrupo < 1 || intervaloMs < 0) {
+            throw new IllegalArgumentException("Fila, grupo ou intervalo inválido: " + capacidadeFila + ", "
+                    + tamanhoGrupo + ", " + intervaloMs);
+        }
+        this.poolGravador = new PoolConexoes(url, 1);
+        this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+        this.tamanhoGrupo = tamanhoGrupo;
+        this.intervaloNanos = TimeUnit.MILLISECONDS.toNanos(intervaloMs);
+        this.gravador = new Thread(this::gravarGrupos, "gravador-produtos");
+        gravador.setDaemon(true);
+        gravador.start();
+    }
+
+    @Override
+    public CompletableFuture<Produto> inserirAsync(Produto produto) {
+        int[] id = new int[1];
+        return enfileirar(conn -> {
+            id[0] = inserirEm(conn, produto);
+            return produto;
+        }, inserido -> {
+            inserido.setId(id[0]);
+            inserido.setVersao(0);
+            if (instantaneo() != null) {
+                instantaneo().gravado(inserido);
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<ResultadoAtualizacao> atualizarAsync(Produto produto) {
+        Produto[] atual = new Produto[1];
+        return enfileirar(conn -> {
+            if (atualizarEm(conn, produto)) {
+                return ResultadoAtualizacao.ATUALIZADO;
+            }
+            atual[0] = buscarEm(conn, produto.getId());
+            return atual[0] != null ? ResultadoAtualizacao.CONFLITO : ResultadoAtualizacao.REMOVIDO;
+        }, resultado -> {
+            if (resultado == ResultadoAtualizacao.ATUALIZADO) {
+                produto.setVersao(produto.getVersao() + 1);
+                if (instantaneo() != null) {
+                    instantaneo().gravado(produto);
+                }
+            } else {
+                conflitoConferido(produto.getId(), atual[0]);
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> deletarAsync(int id) {
+        return enfileirar(conn -> {
+            deletarEm(conn, id);
+            return null;
+        }, resultado -> {
+            if (instantaneo() != null) {
+                instantaneo().removido(id);
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<ResultadoAjuste> ajustarEstoqueAsync(int id, int delta) {
+        int[][] gravado = new int[1][];
+        return enfileirar(conn -> {
+            gravado[0] = executarAjuste(conn, id, delta);
+            return gravado[0] != null ? ResultadoAjuste.AJUSTADO : motivoDaRecusa(conn, id);
+        }, resultado -> {
+            if (gravado[0] != null && instantaneo() != null) {
+                instantaneo().estoqueAjustado(id, gravado[0][0], gravado[0][1]);
+            }
+        });
+    }
+
+    @Override
+    public void inserir(Produto produto) {
+        aguardar(inserirAsync(produto), "Erro ao inserir: ", null);
+    }
+
+    @Override
+    public ResultadoAtualizacao atualizar(Produto produto) {
+        return aguardar(atualizarAsync(produto), "Erro ao atualizar: ", ResultadoAtualizacao.FALHA);
+    }
+
+    @Override
+    public void deletar(int id) {
+        aguardar(deletarAsync(id), "Erro ao deletar: ", null);
+    }
+
+    @Override
+    public ResultadoAjuste ajustarEstoque(int id, int delta) {
+        return aguardar(ajustarEstoqueAsync(id, delta), "Erro ao ajustar estoque: ", ResultadoAjuste.FALHA);
+    }
+
+    @Override
+    public boolean inserirTodos(Collection<Produto> produtos) {
+        descarregar();
+        return super.inserirTodos(produtos);
+    }
+
+    @Override
+    public int atualizarTodos(Collection<Produto> produtos) {
+        descarregar();
+        return super.atualizarTodos(produtos);
+    }
+
+    @Override
+    public void deletarTodos(int[] ids) {
+        descarregar();
+        super.deletarTodos(ids);
+    }
+
+    @Override
+    public Map<Integer, ResultadoAjuste> ajustarEstoqueTodos(Map<Integer, Integer> deltas) {
+        descarregar();
+        return super.ajustarEstoqueTodos(deltas);
+    }
+
+    /**
+     * Espera a gravação de tudo o que foi enfileirado até agora.
+     */
+    public void descarregar() {
+        aguardar(enfileirar(conn -> null, resultado -> { }), "Erro ao descarregar gravações: ", null);
+    }
+
+    public Estatisticas estatisticas() {
+        return new Estatisticas(escritas.sum(), grupos.sum(), gruposRefeitos.sum(), falhas.sum(), fila.size());
+    }
+
+    /**
+     * Grava o que estiver na fila, para a thread do gravador e fecha a conexão dele. Escritas
+     * pedidas depois falham com {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        travaFechamento.writeLock().lock();
+        try {
+            if (fechado) {
+                return;
+            }
+            fechado = true;
+        } finally {
+            travaFechamento.writeLock().unlock();
+        }
+        try {
+            fila.put(FIM);
+            gravador.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            gravador.interrupt();
+        }
+        // Só sobra algo se a espera foi interrompida antes de o gravador chegar ao FIM
+        List<Escrita<?>> restantes = new ArrayList<>();
+        fila.drainTo(restantes);
+        for (Escrita<?> escrita : restantes) {
+            escrita.futuro.completeExceptionally(new IllegalStateException("Gravação agrupada encerrada"));
+        }
+        poolGravador.fechar();
+    }
+
+    // Bloqueia com a fila cheia: é assim que a pressão chega a quem escreve
+    private <T> CompletableFuture<T> enfileirar(Operacao<T> operacao, Consumer<T> aoConfirmar) {
+        Escrita<T> escrita = new Escrita<>(operacao, aoConfirmar);
+        travaFechamento.readLock().lock();
+        try {
+            if (fechado) {
+                escrita.futuro.completeExceptionally(new IllegalStateException("Gravação agrupada encerrada"));
+            } else {
+                fila.put(escrita);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            escrita.futuro.completeExceptionally(e);
+        } finally {
+            travaFechamento.readLock().unlock();
+        }
+        return escrita.futuro;
+    }
+
+    private static <T> T aguardar(CompletableFuture<T> futuro, String mensagemErro, T valorEmFalha) {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            System.err.println(mensagemErro + e.getCause().getMessage());
+            return valorEmFalha;
+        }
+    }
+
+    private void gravarGrupos() {
+        List<Escrita<?>> grupo = new ArrayList<>(tamanhoGrupo);
+        boolean fim = false;
+        while (!fim) {
+            try {
+                grupo.add(fila.take());
+                long prazo = System.nanoTime() + intervaloNanos;
+                while (grupo.size() < tamanhoGrupo) {
+                    fila.drainTo(grupo, tamanhoGrupo - grupo.size());
+                    long restante = prazo - System.nanoTime();
+                    if (grupo.size() >= tamanhoGrupo || restante <= 0 || grupo.contains(FIM)) {
+                        break;
+                    }
+                    Escrita<?> proxima = fila.poll(restante, TimeUnit.NANOSECONDS);
+                    if (proxima == null) {
+                        break;
+                    }
+                    grupo.add(proxima);
+                }
+            } catch (InterruptedException e) {
+                fim = true; // close() interrompido: grava o que já saiu da fila
+            }
+            fim |= grupo.remove(FIM);
+            if (!grupo.isEmpty()) {
+                gravar(grupo);
+                grupo.clear();
+            }
+        }
+    }
+
+    private void gravar(List<Escrita<?>> grupo) {
+        try (ConexaoPool conn = poolGravador.emprestar()) {
+            Connection c = conn.getConexao();
+            // Vale só para esta conexão: o commit de cada grupo espera o disco
+            try (Statement stmt = c.createStatement()) {
+                stmt.execute("PRAGMA synchronous = FULL");
+            }
+            try {
+                executarEmTransacao(c, conn, grupo);
+                grupos.increment();
+            } catch (SQLException e) {
+                if (grupo.size() == 1) {
+                    falhar(grupo.get(0), e);
+                    return;
+                }
+                // Refaz uma a uma para achar a que falhou; as outras são gravadas normalmente
+                gruposRefeitos.increment();
+                for (Escrita<?> escrita : grupo) {
+                    try {
+                        executarEmTransacao(c, conn, List.of(escrita));
+                        grupos.increment();
+                    } catch (SQLException erro) {
+                        falhar(escrita, erro);
+                    }
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            for (Escrita<?> escrita : grupo) {
+                if (!escrita.futuro.isDone()) {
+                    falhar(escrita, e);
+                }
+            }
+        }
+    }
+
+    private void executarEmTransacao(Connection c, ConexaoPool conn, List<Escrita<?>> escritasDoGrupo)
+            throws SQLException {
+        c.setAutoCommit(false);
+        try {
+            for (Escrita<?> escrita : escritasDoGrupo) {
+                escrita.executar(conn);
+            }
+            c.commit();
+        } catch (SQLException | RuntimeException e) {
+            c.rollback();
+            throw e;
+        } finally {
+            c.setAutoCommit(true);
+        }
+        escritas.add(escritasDoGrupo.size());
+        for (Escrita<?> escrita : escritasDoGrupo) {
+            escrita.confirmar();
+        }
+    }
+
+    private void falhar(Escrita<?> escrita, Exception erro) {
+        falhas.increment();
+        escrita.futuro.completeExceptionally(erro);
+    }
+}
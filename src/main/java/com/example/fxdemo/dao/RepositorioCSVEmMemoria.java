@@ -0,0 +1,584 @@
+package com.example.fxdemo.dao;
+
+import com.example.fxdemo.csv.EscritorCSV;
+import com.example.fxdemo.model.IndiceNomes;
+import com.example.fxdemo.model.Produto;
+import com.example.fxdemo.model.ProdutosColunares;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Conteúdo de um CSV de produtos mantido em memória, em colunas ({@link ProdutosColunares}),
+ * com um id estável por linha e um índice dos nomes ({@link IndiceNomes}) para as buscas.
+ * Cada linha tem uma versão, só em memória (recomeça em 0 ao carregar), incrementada a cada
+ * alteração: atualizações de uma versão anterior são recusadas.
+ * <p>
+ * Persistência em diário: inserções são acrescentadas ao próprio CSV; edições e exclusões viram
+ * registros pequenos acrescentados a {@code <arquivo>.log}. Ao carregar, o CSV base é lido e o
+ * diário reaplicado por cima. Quando o diário passa de um limite (absoluto e proporcional ao
+ * tamanho do CSV), um compactador em segundo plano grava um CSV novo (temporário + renomeação
+ * atômica) e esvazia o diário.
+ * <p>
+ * Formato do registro: {@code U,<posição>,<crc da linha anterior>,<linha csv>|<crc do registro>}
+ * ou {@code D,<posição>,<crc da linha anterior>|<crc do registro>}. O crc do registro detecta
+ * registros cortados por uma queda; o crc da linha anterior detecta um diário antigo que
+ * sobrou de uma compactação interrompida entre a renomeação do CSV e a limpeza do diário.
+ */
+class RepositorioCSVEmMemoria {
+    enum PoliticaSync { SEMPRE, PERIODICA, NUNCA }
+
+    private static final PoliticaSync POLITICA_SYNC = PoliticaSync.valueOf(
+            System.getProperty("fxdemo.csv.fsync", "periodica").toUpperCase(Locale.ROOT));
+    private static final long INTERVALO_SYNC_MS = 1000;
+    private static final double RAZAO_COMPACTACAO =
+            Double.parseDouble(System.getProperty("fxdemo.csv.razaoCompactacao", "0.5"));
+    private static final long MIN_BYTES_COMPACTACAO = Long.getLong("fxdemo.csv.minBytesCompactacao", 64 * 1024);
+
+    private static final Map<Path, RepositorioCSVEmMemoria> REPOSITORIOS = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService GRAVADOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "gravador-csv");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        if (POLITICA_SYNC == PoliticaSync.PERIODICA) {
+            GRAVADOR.scheduleWithFixedDelay(() -> REPOSITORIOS.values().forEach(RepositorioCSVEmMemoria::sincronizar),
+                    INTERVALO_SYNC_MS, INTERVALO_SYNC_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private final Path arquivo;
+    private final Path diario;
+    // Ordem das linhas = ordem no arquivo
+    private final ProdutosColunares colunas = new ProdutosColunares();
+    // Montado junto com a leitura do arquivo e mantido a cada alteração
+    private final IndiceNomes indice = new IndiceNomes();
+    // Posição de cada linha no arquivo base (1 = primeira linha após o cabeçalho), crescente
+    private int[] posicoes = new int[16];
+    private int proximoId = 1;
+    private int proximaPosicao = 1;
+    private FileChannel canalArquivo;
+    private FileChannel canalDiario;
+    private long bytesArquivo;
+    private long bytesDiario;
+    private boolean pendenteSync;
+    private boolean compactacaoAgendada;
+    // Depois de fechado, uma compactação ainda na fila não roda: o diário já guarda as
+    // alterações e a próxima abertura as aplica
+    private boolean fechado;
+
+    @FunctionalInterface
+    private interface OperacaoArquivo<T> {
+        T executar() throws IOException;
+    }
+
+    private RepositorioCSVEmMemoria(Path arquivo) {
+        this.arquivo = arquivo;
+        this.diario = arquivo.resolveSibling(arquivo.getFileName() + ".log");
+        try {
+            semInterrupcao(this::carregar);
+        } catch (IOException e) {
+            System.err.println("Erro ao carregar CSV em memória: " + e.getMessage());
+        }
+    }
+
+    private Void carregar() throws IOException {
+        completarUltimaLinha();
+        long corrigidas = CSVProdutoDAO.lerArquivo(arquivo, colunas, indice);
+        // Ao carregar, id e posição no arquivo coincidem
+        posicoes = new int[Math.max(colunas.tamanho(), 16)];
+        for (int linha = 0; linha < colunas.tamanho(); linha++) {
+            posicoes[linha] = linha + 1;
+        }
+        proximoId = colunas.tamanho() + 1;
+        proximaPosicao = proximoId;
+        bytesArquivo = Files.size(arquivo);
+        reaplicarDiario();
+        if (corrigidas > 0) {
+            System.err.println(corrigidas + " linhas do CSV com vírgula decimal foram corrigidas; regravando "
+                    + arquivo);
+            compactar();
+        }
+        return null;
+    }
+
+    static RepositorioCSVEmMemoria de(Path arquivo) {
+        return REPOSITORIOS.computeIfAbsent(arquivo.toAbsolutePath().normalize(), RepositorioCSVEmMemoria::new);
+    }
+
+    /**
+     * Sincroniza com o disco e fecha os arquivos de todos os repositórios abertos.
+     */
+    static void fecharTodos() {
+        REPOSITORIOS.values().forEach(RepositorioCSVEmMemoria::fechar);
+        REPOSITORIOS.clear();
+    }
+
+    synchronized void inserir(Produto produto) {
+        try {
+            bytesArquivo += semInterrupcao(() -> acrescentar(canalArquivo(), EscritorCSV.linha(produto)));
+        } catch (IOException e) {
+            System.err.println("Erro ao inserir no CSV: " + e.getMessage());
+            return;
+        }
+        produto.setId(adicionar(produto.getNome(), EscritorCSV.centavos(produto.getPreco()), produto.getEstoque()));
+        produto.setVersao(0);
+    }
+
+    // Os objetos devolvidos são criados a cada chamada: quem chama não altera as colunas
+    synchronized List<Produto> listarTodos() {
+        List<Produto> produtos = new ArrayList<>(colunas.tamanho());
+        for (int linha = 0; linha < colunas.tamanho(); linha++) {
+            produtos.add(colunas.produto(linha));
+        }
+        return produtos;
+    }
+
+    synchronized ProdutosColunares listarColunas() {
+        return colunas.copia();
+    }
+
+    synchronized int[] buscarIdsPorNome(String texto) {
+        return indice.buscar(texto);
+    }
+
+    synchronized ResultadoAtualizacao atualizar(Produto produtoAntigo, Produto produtoNovo) {
+        return atualizarLinha(localizar(produtoAntigo), produtoAntigo.getVersao(), produtoNovo);
+    }
+
+    /**
+     * Como {@link #atualizar(Produto, Produto)}, com a linha achada pelo id do próprio produto.
+     */
+    synchronized ResultadoAtualizacao atualizar(Produto produto) {
+        return atualizarLinha(colunas.linhaDoId(produto.getId()), produto.getVersao(), produto);
+    }
+
+    synchronized void deletar(Produto produto) {
+        removerLinha(localizar(produto));
+    }
+
+    synchronized void deletar(int id) {
+        removerLinha(colunas.linhaDoId(id));
+    }
+
+    /**
+     * Soma {@code delta} ao estoque, recusando o resultado fora de 0..Integer.MAX_VALUE; como
+     * toda alteração, vai para o diário e sobe a versão.
+     */
+    synchronized ResultadoAjuste ajustarEstoque(int id, int delta) {
+        int linha = colunas.linhaDoId(id);
+        if (linha < 0) {
+            return ResultadoAjuste.REMOVIDO;
+        }
+        long estoque = (long) colunas.getEstoque(linha) + delta;
+        if (estoque < 0 || estoque > Integer.MAX_VALUE) {
+            return ResultadoAjuste.ESTOQUE_INSUFICIENTE;
+        }
+        Produto ajustado = colunas.produto(linha);
+        ajustado.setEstoque((int) estoque);
+        return atualizarLinha(linha, ajustado.getVersao(), ajustado) == ResultadoAtualizacao.ATUALIZADO
+                ? ResultadoAjuste.AJUSTADO : ResultadoAjuste.FALHA;
+    }
+
+    /**
+     * Acrescenta todos ao CSV em uma única escrita; se ela falhar, nenhum é inserido.
+     */
+    synchronized boolean inserirTodos(Collection<Produto> produtos) {
+        ByteArrayOutputStream linhas = new ByteArrayOutputStream();
+        for (Produto produto : produtos) {
+            linhas.writeBytes(EscritorCSV.linha(produto));
+        }
+        try {
+            bytesArquivo += semInterrupcao(() -> acrescentar(canalArquivo(), linhas.toByteArray()));
+        } catch (IOException e) {
+            System.err.println("Erro ao inserir no CSV: " + e.getMessage());
+            return false;
+        }
+        for (Produto produto : produtos) {
+            produto.setId(adicionar(produto.getNome(), EscritorCSV.centavos(produto.getPreco()), produto.getEstoque()));
+            produto.setVersao(0);
+        }
+        return true;
+    }
+
+    synchronized Produto buscarPorId(int id) {
+        int linha = colunas.linhaDoId(id);
+        return linha >= 0 ? colunas.produto(linha) : null;
+    }
+
+    synchronized int contar() {
+        return colunas.tamanho();
+    }
+
+    // Os ids crescem na ordem das linhas: inserções vão para o fim e nada é reordenado
+    synchronized List<Produto> listarPagina(int aposId, int limite) {
+        int inicio = colunas.primeiraLinhaAposId(aposId);
+        int fim = (int) Math.min(colunas.tamanho(), (long) inicio + limite);
+        List<Produto> pagina = new ArrayList<>(Math.max(fim - inicio, 0));
+        for (int linha = inicio; linha < fim; linha++) {
+            pagina.add(colunas.produto(linha));
+        }
+        return pagina;
+    }
+
+    synchronized int buscarIdNaPosicao(int posicao) {
+        return posicao >= 0 && posicao < colunas.tamanho() ? colunas.getId(posicao) : 0;
+    }
+
+    /**
+     * Varre as colunas; só as linhas aceitas pela busca viram objetos.
+     */
+    synchronized List<Produto> buscar(BuscaEmMemoria busca) {
+        for (int linha = 0; linha < colunas.tamanho(); linha++) {
+            if (busca.aceita(colunas.getNome(linha), colunas.getPreco(linha), colunas.getEstoque(linha))) {
+                busca.oferecer(colunas.produto(linha));
+            }
+        }
+        return busca.resultado();
+    }
+
+    private ResultadoAtualizacao atualizarLinha(int linha, int versaoLida, Produto produtoNovo) {
+        if (linha < 0) {
+            return ResultadoAtualizacao.REMOVIDO;
+        }
+        if (colunas.getVersao(linha) != versaoLida) {
+            return ResultadoAtualizacao.CONFLITO;
+        }
+        try {
+            registrar("U," + posicoes[linha] + "," + Long.toHexString(crcConteudo(linha))
+                    + "," + EscritorCSV.formatar(produtoNovo));
+        } catch (IOException e) {
+            System.err.println("Erro ao atualizar produto no CSV: " + e.getMessage());
+            return ResultadoAtualizacao.FALHA;
+        }
+        definir(linha, produtoNovo);
+        produtoNovo.setId(colunas.getId(linha));
+        produtoNovo.setVersao(colunas.getVersao(linha));
+        return ResultadoAtualizacao.ATUALIZADO;
+    }
+
+    private void removerLinha(int linha) {
+        if (linha < 0) {
+            return;
+        }
+        try {
+            registrar("D," + posicoes[linha] + "," + Long.toHexString(crcConteudo(linha)));
+        } catch (IOException e) {
+            System.err.println("Erro ao deletar produto do CSV: " + e.getMessage());
+            return;
+        }
+        remover(linha);
+    }
+
+    synchronized void substituirTodos(List<Produto> produtos) {
+        colunas.limpar();
+        indice.limpar();
+        for (Produto produto : produtos) {
+            produto.setId(adicionar(produto.getNome(), EscritorCSV.centavos(produto.getPreco()), produto.getEstoque()));
+            produto.setVersao(0);
+        }
+        try {
+            semInterrupcao(() -> {
+                compactar();
+                return null;
+            });
+        } catch (IOException e) {
+            System.err.println("Erro ao salvar produtos no CSV: " + e.getMessage());
+        }
+    }
+
+    private int adicionar(String nome, long precoCentavos, int estoque) {
+        int id = proximoId++;
+        int linha = colunas.adicionar(id, nome, precoCentavos, estoque);
+        if (linha == posicoes.length) {
+            posicoes = Arrays.copyOf(posicoes, posicoes.length + (posicoes.length >> 1) + 1);
+        }
+        posicoes[linha] = proximaPosicao++;
+        indice.adicionar(id, nome);
+        return id;
+    }
+
+    private void definir(int linha, Produto produto) {
+        colunas.definir(linha, produto.getNome(), EscritorCSV.centavos(produto.getPreco()), produto.getEstoque());
+        colunas.definirVersao(linha, colunas.getVersao(linha) + 1);
+        indice.alterar(colunas.getId(linha), produto.getNome());
+    }
+
+    private void remover(int linha) {
+        indice.remover(colunas.getId(linha));
+        colunas.remover(linha);
+        System.arraycopy(posicoes, linha + 1, posicoes, linha, colunas.tamanho() - linha);
+    }
+
+    /**
+     * Acha a linha pelo id (busca binária) quando o produto veio deste repositório; sem id,
+     * pelo conteúdo. Devolve o índice da linha, ou -1. Se o conteúdo mudou desde a leitura,
+     * a versão é que diz.
+     */
+    private int localizar(Produto produto) {
+        if (produto.getId() > 0) {
+            return colunas.linhaDoId(produto.getId());
+        }
+        return colunas.procurar(produto.getNome(), EscritorCSV.centavos(produto.getPreco()), produto.getEstoque());
+    }
+
+    private void registrar(String corpo) throws IOException {
+        String registro = corpo + "|" + Long.toHexString(crc(corpo)) + "\n";
+        bytesDiario += semInterrupcao(() -> acrescentar(canalDiario(), registro.getBytes(StandardCharsets.UTF_8)));
+        if (!compactacaoAgendada && bytesDiario >= MIN_BYTES_COMPACTACAO
+                && bytesDiario >= bytesArquivo * RAZAO_COMPACTACAO) {
+            compactacaoAgendada = true;
+            GRAVADOR.execute(this::compactarEmSegundoPlano);
+        }
+    }
+
+    /**
+     * Uma interrupção durante uma operação em FileChannel fecha o canal, que é de todas as
+     * escritas deste arquivo. A marca de interrupção de quem chama é retirada enquanto o arquivo
+     * é gravado e restaurada no fim.
+     */
+    private static <T> T semInterrupcao(OperacaoArquivo<T> operacao) throws IOException {
+        boolean interrompida = Thread.interrupted();
+        try {
+            return operacao.executar();
+        } finally {
+            if (interrompida) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private int acrescentar(FileChannel canal, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int tamanho = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        if (POLITICA_SYNC == PoliticaSync.SEMPRE) {
+            canal.force(false);
+        } else {
+            pendenteSync = true;
+        }
+        return tamanho;
+    }
+
+    private synchronized void compactarEmSegundoPlano() {
+        compactacaoAgendada = false;
+        if (fechado) {
+            return;
+        }
+        try {
+            compactar();
+        } catch (IOException e) {
+            System.err.println("Erro ao compactar CSV: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Grava o estado atual como novo CSV base e esvazia o diário. As posições são renumeradas;
+     * os ids continuam os mesmos.
+     */
+    private void compactar() throws IOException {
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        CSVProdutoDAO.escreverArquivo(temporario, colunas);
+        fecharCanal(canalArquivo);
+        canalArquivo = null;
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        canalDiario().truncate(0);
+        canalDiario.force(false);
+
+        for (int linha = 0; linha < colunas.tamanho(); linha++) {
+            posicoes[linha] = linha + 1;
+        }
+        proximaPosicao = colunas.tamanho() + 1;
+        bytesArquivo = Files.size(arquivo);
+        bytesDiario = 0;
+    }
+
+    private void reaplicarDiario() throws IOException {
+        if (!Files.exists(diario)) {
+            return;
+        }
+        byte[] conteudo = Files.readAllBytes(diario);
+        int inicio = 0;
+        int registros = 0;
+        while (inicio < conteudo.length) {
+            int fim = fimDoRegistro(conteudo, inicio);
+            if (fim < 0) {
+                break; // registro cortado no fim do arquivo
+            }
+            if (!aplicarRegistro(new String(conteudo, inicio, fim - inicio, StandardCharsets.UTF_8))) {
+                break;
+            }
+            registros++;
+            inicio = fim + 1;
+        }
+
+        if (inicio < conteudo.length) {
+            System.err.println("Diário do CSV inválido a partir do byte " + inicio + " ("
+                    + registros + " registros reaplicados); o restante foi descartado");
+            canalDiario().truncate(inicio);
+            canalDiario.force(false);
+        }
+        bytesDiario = inicio;
+    }
+
+    private boolean aplicarRegistro(String registro) {
+        int barra = registro.lastIndexOf('|');
+        if (barra < 0) {
+            return false;
+        }
+        String corpo = registro.substring(0, barra);
+        try {
+            if (Long.parseLong(registro.substring(barra + 1), 16) != crc(corpo)) {
+                return false;
+            }
+            String[] partes = corpo.split(",", 4);
+            // As posições são crescentes: busca binária
+            int linha = Arrays.binarySearch(posicoes, 0, colunas.tamanho(), Integer.parseInt(partes[1]));
+            if (linha < 0 || Long.parseLong(partes[2], 16) != crcConteudo(linha)) {
+                return false;
+            }
+            if (partes[0].equals("U") && partes.length == 4) {
+                Produto novo = CSVProdutoDAO.parsearLinha(partes[3]);
+                if (novo == null) {
+                    return false;
+                }
+                definir(linha, novo);
+                return true;
+            }
+            if (partes[0].equals("D")) {
+                remover(linha);
+                return true;
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            // registro corrompido
+        }
+        return false;
+    }
+
+    /**
+     * Uma inserção cortada por uma queda deixa o CSV sem a quebra de linha final; completá-la
+     * impede que a próxima inserção seja colada na linha incompleta.
+     */
+    private void completarUltimaLinha() throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long tamanho = canal.size();
+            if (tamanho == 0) {
+                return;
+            }
+            ByteBuffer ultimo = ByteBuffer.allocate(1);
+            canal.read(ultimo, tamanho - 1);
+            if (ultimo.get(0) != '\n') {
+                canal.write(ByteBuffer.wrap(new byte[]{'\n'}), tamanho);
+                canal.force(false);
+            }
+        }
+    }
+
+    private synchronized void sincronizar() {
+        if (!pendenteSync) {
+            return;
+        }
+        try {
+            if (canalArquivo != null) {
+                canalArquivo.force(false);
+            }
+            if (canalDiario != null) {
+                canalDiario.force(false);
+            }
+            pendenteSync = false;
+        } catch (IOException e) {
+            System.err.println("Erro ao sincronizar CSV: " + e.getMessage());
+        }
+    }
+
+    private synchronized void fechar() {
+        fechado = true;
+        sincronizar();
+        fecharCanal(canalArquivo);
+        fecharCanal(canalDiario);
+        canalArquivo = null;
+        canalDiario = null;
+    }
+
+    // Um canal fechado por uma interrupção que chegou no meio de uma escrita é reaberto, e o
+    // que ela deixou pela metade depois do último tamanho conhecido é descartado
+    private FileChannel canalArquivo() throws IOException {
+        if (canalArquivo == null || !canalArquivo.isOpen()) {
+            boolean perdido = canalArquivo != null;
+            canalArquivo = FileChannel.open(arquivo, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            if (perdido) {
+                canalArquivo.truncate(bytesArquivo);
+            }
+        }
+        return canalArquivo;
+    }
+
+    private FileChannel canalDiario() throws IOException {
+        if (canalDiario == null || !canalDiario.isOpen()) {
+            boolean perdido = canalDiario != null;
+            canalDiario = FileChannel.open(diario, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            if (perdido) {
+                canalDiario.truncate(bytesDiario);
+            }
+        }
+        return canalDiario;
+    }
+
+    private static void fecharCanal(FileChannel canal) {
+        if (canal != null) {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                System.err.println("Erro ao fechar arquivo: " + e.getMessage());
+            }
+        }
+    }
+
+    // Uma quebra de linha dentro de aspas faz parte do nome gravado no registro, não o encerra
+    private static int fimDoRegistro(byte[] bytes, int inicio) {
+        boolean entreAspas = false;
+        for (int i = inicio; i < bytes.length; i++) {
+            if (bytes[i] == '"') {
+                entreAspas = !entreAspas;
+            } else if (bytes[i] == '\n' && !entreAspas) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long crc(String texto) {
+        CRC32 crc = new CRC32();
+        crc.update(texto.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    // Independe da formatação da linha no arquivo
+    private long crcConteudo(int linha) {
+        return crc(colunas.getNome(linha) + '\n' + colunas.getPrecoCentavos(linha) + '\n' + colunas.getEstoque(linha));
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.fxdemo.dao;
+
+import com.example.fxdemo.model.Produto;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Operações sobre o cadastro de produtos comuns a todos os mecanismos de armazenamento, para a
+ * tela e as ferramentas não dependerem de qual está em uso:
+ * <ul>
+ *     <li>{@code sqlite} (padrão): {@link ProdutoDAO}, o banco {@code produtos.db};</li>
+ *     <li>{@code sqlite-cache}: {@link ProdutoDAOComCache}, o mesmo banco com cache de leitura;</li>
+ *     <li>{@code sqlite-agrupado}: {@link ProdutoDAOComGravacaoAgrupada}, o mesmo banco com as
+ *     escritas gravadas em grupos;</li>
+ *     <li>{@code csv}: {@link RepositorioProdutosCSV}, o arquivo {@code produtos.csv} em memória
+ *     com diário;</li>
+ *     <li>{@code memoria}: {@link RepositorioProdutosMemoria}, só em memória, perdido ao sair.</li>
+ * </ul>
+ * O mecanismo da aplicação é escolhido por {@code -Dfxdemo.repositorio} ({@link #configurado()}).
+ * <p>
+ * Produtos são identificados pelo id, gerado na inserção, e alterados com controle de versão:
+ * {@link #atualizar(Produto)} só grava sobre a versão lida. Os métodos de lote fazem o trabalho
+ * de uma vez (no SQLite, em uma única transação). As implementações são thread-safe e, como o
+ * ProdutoDAO, registram os erros e devolvem vazio / {@code FALHA} em vez de lançar exceções.
+ * <p>
+ * As variantes {@code ...Async} rodam a operação em uma thread virtual e devolvem um
+ * {@link CompletableFuture}; um mecanismo pode sobrescrevê-las (ex.: agrupando escritas).
+ */
+public interface RepositorioProdutos {
+    String PROPRIEDADE = "fxdemo.repositorio";
+
+    /**
+     * Mecanismo escolhido por {@code -Dfxdemo.repositorio} (sqlite, sqlite-cache, sqlite-agrupado,
+     * csv ou memoria), com os arquivos padrão da aplicação.
+     */
+    static RepositorioProdutos configurado() {
+        String mecanismo = System.getProperty(PROPRIEDADE, "sqlite");
+        return switch (mecanismo.toLowerCase(Locale.ROOT)) {
+            case "sqlite" -> new ProdutoDAO();
+            case "sqlite-cache" -> new ProdutoDAOComCache();
+            case "sqlite-agrupado" -> ProdutoDAOComGravacaoAgrupada.daAplicacao();
+            case "csv" -> new RepositorioProdutosCSV();
+            case "memoria" -> RepositorioProdutosMemoria.daAplicacao();
+            default -> throw new IllegalArgumentException("Repositório desconhecido em -D" + PROPRIEDADE + ": "
+                    + mecanismo + " (use sqlite, sqlite-cache, sqlite-agrupado, csv ou memoria)");
+        };
+    }
+
+    /**
+     * Insere o produto e grava nele o id gerado e a versão 0.
+     */
+    void inserir(Produto produto);
+
+    /**
+     * O produto com o id, ou {@code null}.
+     */
+    Produto buscarPorId(int id);
+
+    List<Produto> listarTodos();
+
+    int contar();
+
+    /**
+     * Paginação por chave: até {@code limite} produtos com id maior que {@code aposId}, em ordem
+     * de id.
+     */
+    List<Produto> listarPagina(int aposId, int limite);
+
+    /**
+     * Id do produto na posição informada (base 0, em ordem de id), ou 0 se não houver.
+     */
+    int buscarIdNaPosicao(int posicao);
+
+    /**
+     * Grava o produto só se ele ainda estiver na versão lida; em caso de sucesso, a nova versão
+     * é gravada no objeto.
+     */
+    ResultadoAtualizacao atualizar(Produto produto);
+
+    void deletar(int id);
+
+    /**
+     * Soma {@code delta} ao estoque de forma atômica, recusando o ajuste que o deixaria negativo.
+     */
+    ResultadoAjuste ajustarEstoque(int id, int delta);
+
+    /**
+     * Insere todos ou nenhum; devolve se foram gravados.
+     */
+    boolean inserirTodos(Collection<Produto> produtos);
+
+    /**
+     * Como {@link #atualizar(Produto)} para cada um; devolve quantos foram gravados.
+     */
+    int atualizarTodos(Collection<Produto> produtos);
+
+    void deletarTodos(int[] ids);
+
+    /**
+     * Ajustes (id → delta) que não foram aplicados, com o motivo; vazio se todos foram.
+     */
+    Map<Integer, ResultadoAjuste> ajustarEstoqueTodos(Map<Integer, Integer> deltas);
+
+    /**
+     * Até {@code limite} produtos cujo nome começa com o prefixo (sem diferenciar maiúsculas), em
+     * ordem de nome.
+     */
+    List<Produto> buscarPorNomePrefixo(String prefixo, int limite);
+
+    /**
+     * Até {@code limite} produtos com preço entre {@code minimo} e {@code maximo} (inclusive), em
+     * ordem de preço.
+     */
+    List<Produto> buscarPorFaixaDePreco(double minimo, double maximo, int limite);
+
+    /**
+     * Até {@code limite} produtos com estoque menor que {@code quantidade}, do menor para o maior.
+     */
+    List<Produto> buscarEstoqueAbaixoDe(int quantidade, int limite);
+
+    /**
+     * Uma página (base 0) dos produtos com palavras do nome começando com cada palavra do texto.
+     * A ordem depende do mecanismo (relevância no SQLite, id nos demais). Cancelada, devolve uma
+     * lista vazia.
+     */
+    List<Produto> buscarTexto(String texto, int pagina, int tamanhoPagina, CancelamentoConsulta cancelamento);
+
+    default CompletableFuture<Produto> inserirAsync(Produto produto) {
+        return emSegundoPlano(() -> {
+            inserir(produto);
+            return produto;
+        });
+    }
+
+    default CompletableFuture<Produto> buscarPorIdAsync(int id) {
+        return emSegundoPlano(() -> buscarPorId(id));
+    }
+
+    default CompletableFuture<ResultadoAtualizacao> atualizarAsync(Produto produto) {
+        return emSegundoPlano(() -> atualizar(produto));
+    }
+
+    default CompletableFuture<Void> deletarAsync(int id) {
+        return emSegundoPlano(() -> {
+            deletar(id);
+            return null;
+        });
+    }
+
+    default CompletableFuture<ResultadoAjuste> ajustarEstoqueAsync(int id, int delta) {
+        return emSegundoPlano(() -> ajustarEstoque(id, delta));
+    }
+
+    default CompletableFuture<Boolean> inserirTodosAsync(Collection<Produto> produtos) {
+        return emSegundoPlano(() -> inserirTodos(produtos));
+    }
+
+    default CompletableFuture<Integer> atualizarTodosAsync(Collection<Produto> produtos) {
+        return emSegundoPlano(() -> atualizarTodos(produtos));
+    }
+
+    default CompletableFuture<Void> deletarTodosAsync(int[] ids) {
+        return emSegundoPlano(() -> {
+            deletarTodos(ids);
+            return null;
+        });
+    }
+
+    // Uma thread virtual por operação: o acesso a disco bloqueia, então não usa o pool comum
+    private static <T> CompletableFuture<T> emSegundoPlano(Supplier<T> operacao) {
+        return CompletableFuture.supplyAsync(operacao, Thread::startVirtualThread);
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.fxdemo.dao;
+
+import com.example.fxdemo.model.Produto;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link RepositorioProdutos} sobre um CSV no modo em memória ({@link RepositorioCSVEmMemoria}):
+ * os dados ficam em colunas, as alterações vão para o diário e as buscas são varreduras das
+ * colunas. É o mesmo conteúdo que o {@link CSVProdutoDAO} do mesmo arquivo vê. Os ids valem
+ * enquanto a aplicação estiver aberta (ao carregar, são as posições das linhas).
+ * <p>
+ * O modo arquivo do CSVProdutoDAO (reescrever o CSV a cada operação) não tem ids estáveis
+ * nem versões, então não é oferecido aqui.
+ */
+public class RepositorioProdutosCSV implements RepositorioProdutos {
+    private static final String CSV_FILE = "produtos.csv";
+
+    private final RepositorioCSVEmMemoria repositorio;
+
+    public RepositorioProdutosCSV() {
+        this(CSV_FILE);
+    }
+
+    public RepositorioProdutosCSV(String caminho) {
+        Path arquivo = Paths.get(caminho);
+        CSVProdutoDAO.criarSeNaoExistir(arquivo);
+        this.repositorio = RepositorioCSVEmMemoria.de(arquivo);
+    }
+
+    @Override
+    public void inserir(Produto produto) {
+        repositorio.inserir(produto);
+    }
+
+    @Override
+    public Produto buscarPorId(int id) {
+        return repositorio.buscarPorId(id);
+    }
+
+    @Override
+    public List<Produto> listarTodos() {
+        return repositorio.listarTodos();
+    }
+
+    @Override
+    public int contar() {
+        return repositorio.contar();
+    }
+
+    @Override
+    public List<Produto> listarPagina(int aposId, int limite) {
+        return repositorio.listarPagina(aposId, limite);
+    }
+
+    @Override
+    public int buscarIdNaPosicao(int posicao) {
+        return repositorio.buscarIdNaPosicao(posicao);
+    }
+
+    @Override
+    public ResultadoAtualizacao atualizar(Produto produto) {
+        return repositorio.atualizar(produto);
+    }
+
+    @Override
+    public void deletar(int id) {
+        repositorio.deletar(id);
+    }
+
+    @Override
+    public ResultadoAjuste ajustarEstoque(int id, int delta) {
+        return repositorio.ajustarEstoque(id, delta);
+    }
+
+    @Override
+    public boolean inserirTodos(Collection<Produto> produtos) {
+        return repositorio.inserirTodos(produtos);
+    }
+
+    // Os lotes abaixo mantêm a trava do repositório do começo ao fim: ninguém vê parte deles
+    @Override
+    public int atualizarTodos(Collection<Produto> produtos) {
+        synchronized (repositorio) {
+            int gravados = 0;
+            for (Produto produto : produtos) {
+                if (repositorio.atualizar(produto) == ResultadoAtualizacao.ATUALIZADO) {
+                    gravados++;
+                }
+            }
+            return gravados;
+        }
+    }
+
+    @Override
+    public void deletarTodos(int[] ids) {
+        synchronized (repositorio) {
+            for (int id : ids) {
+                repositorio.deletar(id);
+            }
+        }
+    }
+
+    @Override
+    public Map<Integer, ResultadoAjuste> ajustarEstoqueTodos(Map<Integer, Integer> deltas) {
+        Map<Integer, ResultadoAjuste> recusados = new HashMap<>();
+        synchronized (repositorio) {
+            for (Map.Entry<Integer, Integer> ajuste : deltas.entrySet()) {
+                ResultadoAjuste resultado = repositorio.ajustarEstoque(ajuste.getKey(), ajuste.getValue());
+                if (resultado != ResultadoAjuste.AJUSTADO) {
+                    recusados.put(ajuste.getKey(), resultado);
+                }
+            }
+        }
+        return recusados;
+    }
+
+    @Override
+    public List<Produto> buscarPorNomePrefixo(String prefixo, int limite) {
+        return repositorio.buscar(BuscaEmMemoria.porNomePrefixo(prefixo, limite));
+    }
+
+    @Override
+    public List<Produto> buscarPorFaixaDePreco(double minimo, double maximo, int limite) {
+        return repositorio.buscar(BuscaEmMemoria.porFaixaDePreco(minimo, maximo, limite));
+    }
+
+    @Override
+    public List<Produto> buscarEstoqueAbaixoDe(int quantidade, int limite) {
+        return repositorio.buscar(BuscaEmMemoria.porEstoqueAbaixoDe(quantidade, limite));
+    }
+
+    @Override
+    public List<Produto> buscarTexto(String texto, int pagina, int tamanhoPagina, CancelamentoConsulta cancelamento) {
+        BuscaEmMemoria busca = BuscaEmMemoria.porTexto(texto, pagina, tamanhoPagina);
+        return busca == null || cancelamento.isCancelada() ? new ArrayList<>() : repositorio.buscar(busca);
+    }
+}
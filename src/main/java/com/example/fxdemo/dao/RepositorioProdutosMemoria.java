@@ -0,0 +1,200 @@
+package com.example.fxdemo.dao;
+
+import com.example.fxdemo.model.Produto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link RepositorioProdutos} só em memória, sem nenhum arquivo: serve de referência nas
+ * comparações entre mecanismos e para rodar a aplicação sem disco. Os produtos ficam em um
+ * {@link ConcurrentSkipListMap} por id, então leituras nunca esperam por escritas e as páginas
+ * por chave saem em ordem de id. Cada produto guardado é uma cópia imutável, trocada por
+ * inteiro a cada alteração ({@code compute} na chave dá a atomicidade da versão e do estoque).
+ * <p>
+ * As operações de lote não são atômicas em conjunto: outra thread pode ver parte delas.
+ */
+public class RepositorioProdutosMemoria implements RepositorioProdutos {
+    private static final RepositorioProdutosMemoria DA_APLICACAO = new RepositorioProdutosMemoria();
+
+    private final ConcurrentSkipListMap<Integer, Produto> produtos = new ConcurrentSkipListMap<>();
+    private final AtomicInteger ultimoId = new AtomicInteger();
+
+    /**
+     * Instância compartilhada pelas telas da aplicação ({@code -Dfxdemo.repositorio=memoria}).
+     */
+    public static RepositorioProdutosMemoria daAplicacao() {
+        return DA_APLICACAO;
+    }
+
+    @Override
+    public void inserir(Produto produto) {
+        produto.setId(ultimoId.incrementAndGet());
+        produto.setVersao(0);
+        produtos.put(produto.getId(), copia(produto));
+    }
+
+    @Override
+    public Produto buscarPorId(int id) {
+        Produto produto = produtos.get(id);
+        return produto != null ? copia(produto) : null;
+    }
+
+    @Override
+    public List<Produto> listarTodos() {
+        List<Produto> todos = new ArrayList<>(produtos.size());
+        for (Produto produto : produtos.values()) {
+            todos.add(copia(produto));
+        }
+        return todos;
+    }
+
+    @Override
+    public int contar() {
+        return produtos.size();
+    }
+
+    @Override
+    public List<Produto> listarPagina(int aposId, int limite) {
+        List<Produto> pagina = new ArrayList<>(Math.min(limite, 1024));
+        Iterator<Produto> seguintes = produtos.tailMap(aposId, false).values().iterator();
+        while (pagina.size() < limite && seguintes.hasNext()) {
+            pagina.add(copia(seguintes.next()));
+        }
+        return pagina;
+    }
+
+    // Sem acesso por posição no mapa: percorre as chaves até ela
+    @Override
+    public int buscarIdNaPosicao(int posicao) {
+        if (posicao < 0) {
+            return 0;
+        }
+        int i = 0;
+        for (Integer id : produtos.keySet()) {
+            if (i++ == posicao) {
+                return id;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public ResultadoAtualizacao atualizar(Produto produto) {
+        ResultadoAtualizacao[] resultado = {ResultadoAtualizacao.REMOVIDO};
+        produtos.computeIfPresent(produto.getId(), (id, atual) -> {
+            if (atual.getVersao() != produto.getVersao()) {
+                resultado[0] = ResultadoAtualizacao.CONFLITO;
+                return atual;
+            }
+            resultado[0] = ResultadoAtualizacao.ATUALIZADO;
+            return new Produto(id, produto.getNome(), produto.getPreco(), produto.getEstoque(), atual.getVersao() + 1);
+        });
+        if (resultado[0] == ResultadoAtualizacao.ATUALIZADO) {
+            produto.setVersao(produto.getVersao() + 1);
+        }
+        return resultado[0];
+    }
+
+    @Override
+    public void deletar(int id) {
+        produtos.remove(id);
+    }
+
+    @Override
+    public ResultadoAjuste ajustarEstoque(int id, int delta) {
+        ResultadoAjuste[] resultado = {ResultadoAjuste.REMOVIDO};
+        produtos.computeIfPresent(id, (chave, atual) -> {
+            long estoque = (long) atual.getEstoque() + delta;
+            if (estoque < 0 || estoque > Integer.MAX_VALUE) {
+                resultado[0] = ResultadoAjuste.ESTOQUE_INSUFICIENTE;
+                return atual;
+            }
+            resultado[0] = ResultadoAjuste.AJUSTADO;
+            return new Produto(chave, atual.getNome(), atual.getPreco(), (int) estoque, atual.getVersao() + 1);
+        });
+        return resultado[0];
+    }
+
+    @Override
+    public boolean inserirTodos(Collection<Produto> novos) {
+        for (Produto produto : novos) {
+            inserir(produto);
+        }
+        return true;
+    }
+
+    @Override
+    public int atualizarTodos(Collection<Produto> alterados) {
+        int gravados = 0;
+        for (Produto produto : alterados) {
+            if (atualizar(produto) == ResultadoAtualizacao.ATUALIZADO) {
+                gravados++;
+            }
+        }
+        return gravados;
+    }
+
+    @Override
+    public void deletarTodos(int[] ids) {
+        for (int id : ids) {
+            produtos.remove(id);
+        }
+    }
+
+    @Override
+    public Map<Integer, ResultadoAjuste> ajustarEstoqueTodos(Map<Integer, Integer> deltas) {
+        Map<Integer, ResultadoAjuste> recusados = new HashMap<>();
+        for (Map.Entry<Integer, Integer> ajuste : deltas.entrySet()) {
+            ResultadoAjuste resultado = ajustarEstoque(ajuste.getKey(), ajuste.getValue());
+            if (resultado != ResultadoAjuste.AJUSTADO) {
+                recusados.put(ajuste.getKey(), resultado);
+            }
+        }
+        return recusados;
+    }
+
+    @Override
+    public List<Produto> buscarPorNomePrefixo(String prefixo, int limite) {
+        return buscar(BuscaEmMemoria.porNomePrefixo(prefixo, limite));
+    }
+
+    @Override
+    public List<Produto> buscarPorFaixaDePreco(double minimo, double maximo, int limite) {
+        return buscar(BuscaEmMemoria.porFaixaDePreco(minimo, maximo, limite));
+    }
+
+    @Override
+    public List<Produto> buscarEstoqueAbaixoDe(int quantidade, int limite) {
+        return buscar(BuscaEmMemoria.porEstoqueAbaixoDe(quantidade, limite));
+    }
+
+    @Override
+    public List<Produto> buscarTexto(String texto, int pagina, int tamanhoPagina, CancelamentoConsulta cancelamento) {
+        BuscaEmMemoria busca = BuscaEmMemoria.porTexto(texto, pagina, tamanhoPagina);
+        return busca == null || cancelamento.isCancelada() ? new ArrayList<>() : buscar(busca);
+    }
+
+    private List<Produto> buscar(BuscaEmMemoria busca) {
+        for (Produto produto : produtos.values()) {
+            if (busca.aceita(produto.getNome(), produto.getPreco(), produto.getEstoque())) {
+                busca.oferecer(produto);
+            }
+        }
+        // Só os que serão devolvidos são copiados
+        List<Produto> encontrados = busca.resultado();
+        encontrados.replaceAll(RepositorioProdutosMemoria::copia);
+        return encontrados;
+    }
+
+    private static Produto copia(Produto produto) {
+        return new Produto(produto.getId(), produto.getNome(), produto.getPreco(), produto.getEstoque(),
+                produto.getVersao());
+    }
+}
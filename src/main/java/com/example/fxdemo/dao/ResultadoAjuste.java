@@ -0,0 +1,14 @@
+package com.example.fxdemo.dao;
+
+/**
+ * Resultado de um ajuste de estoque ({@link ProdutoDAO#ajustarEstoque(int, int)}).
+ */
+public enum ResultadoAjuste {
+    AJUSTADO,
+    // O ajuste deixaria o estoque negativo (ou acima do maior int); nada foi alterado
+    ESTOQUE_INSUFICIENTE,
+    // O produto não existe
+    REMOVIDO,
+    // Erro de acesso aos dados (já registrado)
+    FALHA
+}
@@ -0,0 +1,15 @@
+package com.example.fxdemo.dao;
+
+/**
+ * Resultado de uma atualização com controle de versão: ela só é gravada se o produto ainda
+ * estiver na versão que foi lida.
+ */
+public enum ResultadoAtualizacao {
+    ATUALIZADO,
+    // Outra edição foi gravada depois da leitura; nada foi alterado
+    CONFLITO,
+    // O produto não existe mais
+    REMOVIDO,
+    // Erro de acesso aos dados (já registrado)
+    FALHA
+}
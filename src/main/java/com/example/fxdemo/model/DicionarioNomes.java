@@ -0,0 +1,179 @@
+package com.example.fxdemo.model;
+
+import java.util.Arrays;
+
+/**
+ * Codifica nomes como inteiros: cada nome distinto é guardado uma vez e as linhas guardam só o
+ * código. Os códigos têm contagem de referências e são reaproveitados quando o nome deixa de ser
+ * usado. A busca nome → código é uma tabela de endereçamento aberto em {@code int[]}, sem
+ * objetos por entrada.
+ */
+final class DicionarioNomes {
+    private static final int VAZIO = -1;
+
+    private String[] nomes;
+    private int[] referencias;
+    private int quantidade;
+    // Códigos liberados, reaproveitados antes de criar novos
+    private int[] livres = new int[8];
+    private int quantidadeLivres;
+    // Tabela de códigos por hash do nome; montada sob demanda (cópias só leem nomes)
+    private int[] tabela;
+    private int ocupados;
+
+    DicionarioNomes(int capacidade) {
+        nomes = new String[Math.max(capacidade, 8)];
+        referencias = new int[nomes.length];
+    }
+
+    private DicionarioNomes(DicionarioNomes outro) {
+        nomes = Arrays.copyOf(outro.nomes, Math.max(outro.quantidade, 8));
+        referencias = Arrays.copyOf(outro.referencias, nomes.length);
+        quantidade = outro.quantidade;
+        livres = Arrays.copyOf(outro.livres, Math.max(outro.quantidadeLivres, 8));
+        quantidadeLivres = outro.quantidadeLivres;
+    }
+
+    DicionarioNomes copia() {
+        return new DicionarioNomes(this);
+    }
+
+    String nome(int codigo) {
+        return nomes[codigo];
+    }
+
+    int distintos() {
+        return quantidade - quantidadeLivres;
+    }
+
+    /**
+     * Código do nome, criando-o se preciso, e conta mais uma referência a ele.
+     */
+    int referenciar(String nome) {
+        int codigo = procurar(nome);
+        if (codigo == VAZIO) {
+            codigo = novoCodigo(nome);
+            inserirNaTabela(codigo);
+        }
+        referencias[codigo]++;
+        return codigo;
+    }
+
+    void liberar(int codigo) {
+        if (--referencias[codigo] > 0) {
+            return;
+        }
+        removerDaTabela(codigo);
+        nomes[codigo] = null;
+        if (quantidadeLivres == livres.length) {
+            livres = Arrays.copyOf(livres, livres.length * 2);
+        }
+        livres[quantidadeLivres++] = codigo;
+    }
+
+    /**
+     * Código do nome, ou -1 se nenhuma linha o usa.
+     */
+    int procurar(String nome) {
+        montarTabela();
+        int mascara = tabela.length - 1;
+        for (int i = espalhar(nome.hashCode()) & mascara; ; i = (i + 1) & mascara) {
+            int codigo = tabela[i];
+            if (codigo == VAZIO) {
+                return VAZIO;
+            }
+            if (nomes[codigo].equals(nome)) {
+                return codigo;
+            }
+        }
+    }
+
+    void limpar() {
+        Arrays.fill(nomes, 0, quantidade, null);
+        Arrays.fill(referencias, 0, quantidade, 0);
+        quantidade = 0;
+        quantidadeLivres = 0;
+        tabela = null;
+        ocupados = 0;
+    }
+
+    private int novoCodigo(String nome) {
+        int codigo;
+        if (quantidadeLivres > 0) {
+            codigo = livres[--quantidadeLivres];
+        } else {
+            if (quantidade == nomes.length) {
+                nomes = Arrays.copyOf(nomes, nomes.length * 2);
+                referencias = Arrays.copyOf(referencias, nomes.length);
+            }
+            codigo = quantidade++;
+        }
+        nomes[codigo] = nome;
+        return codigo;
+    }
+
+    private void montarTabela() {
+        if (tabela != null) {
+            return;
+        }
+        tabela = new int[tamanhoTabela(distintos())];
+        Arrays.fill(tabela, VAZIO);
+        ocupados = 0;
+        for (int codigo = 0; codigo < quantidade; codigo++) {
+            if (nomes[codigo] != null) {
+                inserirNaTabela(codigo);
+            }
+        }
+    }
+
+    private void inserirNaTabela(int codigo) {
+        if ((ocupados + 1) * 2 > tabela.length) {
+            tabela = null;
+            montarTabela(); // já inclui o código novo, que está em nomes
+            return;
+        }
+        int mascara = tabela.length - 1;
+        int i = espalhar(nomes[codigo].hashCode()) & mascara;
+        while (tabela[i] != VAZIO) {
+            i = (i + 1) & mascara;
+        }
+        tabela[i] = codigo;
+        ocupados++;
+    }
+
+    // Remoção com deslocamento para trás: mantém as sequências de sondagem sem marcadores
+    private void removerDaTabela(int codigo) {
+        if (tabela == null) {
+            return;
+        }
+        int mascara = tabela.length - 1;
+        int i = espalhar(nomes[codigo].hashCode()) & mascara;
+        while (tabela[i] != codigo) {
+            i = (i + 1) & mascara;
+        }
+        tabela[i] = VAZIO;
+        ocupados--;
+        for (int j = (i + 1) & mascara; tabela[j] != VAZIO; j = (j + 1) & mascara) {
+            int candidato = tabela[j];
+            int ideal = espalhar(nomes[candidato].hashCode()) & mascara;
+            // Move se a posição ideal do candidato não está entre o buraco (exclusive) e j
+            if (((j - ideal) & mascara) >= ((j - i) & mascara)) {
+                tabela[i] = candidato;
+                tabela[j] = VAZIO;
+                i = j;
+            }
+        }
+    }
+
+    private static int tamanhoTabela(int elementos) {
+        int tamanho = 16;
+        while (tamanho < elementos * 2 + 2) {
+            tamanho <<= 1;
+        }
+        return tamanho;
+    }
+
+    private static int espalhar(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
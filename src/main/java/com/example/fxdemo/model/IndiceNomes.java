@@ -0,0 +1,420 @@
+package com.example.fxdemo.model;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+
+/**
+ * Índice em memória dos nomes de produtos, por id, para filtrar a cada tecla sem percorrer
+ * a lista. Maiúsculas e acentos são ignorados.
+ * <ul>
+ *   <li>Consultas de 1 ou 2 caracteres vão a uma árvore de prefixos (trie) das palavras do
+ *   nome: devolvem os nomes com alguma palavra começando pelo texto. A árvore só tem esses
+ *   dois níveis; a partir do terceiro caractere quem responde são os trigramas.</li>
+ *   <li>Consultas maiores procuram o texto em qualquer posição do nome: os candidatos são os
+ *   ids da lista do trigrama mais raro da consulta, conferidos um a um contra o nome.</li>
+ * </ul>
+ * Alterações e remoções não apagam nada das listas: a conferência usa sempre o nome atual do
+ * id, e as listas são refeitas quando as entradas obsoletas passam de um quarto do total.
+ * Os resultados saem em ordem crescente de id. Não é thread-safe.
+ */
+public class IndiceNomes {
+    private static final int TAMANHO_TRIGRAMA = 3;
+    private static final int MIN_OBSOLETAS_RECONSTRUCAO = 1024;
+    // Minúscula sem acento dos caracteres latinos; os demais passam por Character.toLowerCase
+    private static final char[] DOBRADOS = new char[0x250];
+
+    static {
+        for (char c = 0; c < DOBRADOS.length; c++) {
+            String decomposto = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+            DOBRADOS[c] = Character.toLowerCase(decomposto.charAt(0));
+        }
+    }
+
+    // Nome atual de cada id (null: removido ou nunca usado)
+    private String[] nomes = new String[16];
+    private int quantidade;
+    private final No raiz = new No();
+    private final TabelaTrigramas trigramas = new TabelaTrigramas();
+    private long entradas;
+    private long obsoletas;
+
+    public int tamanho() {
+        return quantidade;
+    }
+
+    public void adicionar(int id, String nome) {
+        if (id >= nomes.length) {
+            nomes = Arrays.copyOf(nomes, Math.max(id + 1, nomes.length + (nomes.length >> 1)));
+        }
+        if (nomes[id] != null) {
+            alterar(id, nome);
+            return;
+        }
+        nomes[id] = nome;
+        quantidade++;
+        indexar(id, nome);
+    }
+
+    public void alterar(int id, String nome) {
+        String anterior = id < nomes.length ? nomes[id] : null;
+        if (anterior == null) {
+            adicionar(id, nome);
+            return;
+        }
+        if (anterior.equals(nome)) {
+            return;
+        }
+        nomes[id] = nome;
+        obsoletas += anterior.length();
+        indexar(id, nome);
+        reconstruirSeNecessario();
+    }
+
+    public void remover(int id) {
+        if (id < 0 || id >= nomes.length || nomes[id] == null) {
+            return;
+        }
+        obsoletas += nomes[id].length();
+        nomes[id] = null;
+        quantidade--;
+        reconstruirSeNecessario();
+    }
+
+    public void limpar() {
+        nomes = new String[16];
+        quantidade = 0;
+        raiz.limpar();
+        trigramas.limpar();
+        entradas = 0;
+        obsoletas = 0;
+    }
+
+    /**
+     * Ids, em ordem crescente, dos nomes que casam com o texto (ver a descrição da classe).
+     * Texto vazio devolve todos.
+     */
+    public int[] buscar(String texto) {
+        String consulta = dobrar(texto);
+        if (consulta.isEmpty()) {
+            return todos();
+        }
+        if (consulta.length() < TAMANHO_TRIGRAMA) {
+            if (!letrasOuDigitos(consulta)) {
+                return varrer(consulta, true);
+            }
+            // Todo início de palavra está na árvore: sem o nó, nenhum nome casa
+            ListaIds lista = listaDoPrefixo(consulta);
+            return lista != null ? conferir(lista, consulta, true) : new int[0];
+        }
+        ListaIds maisRara = null;
+        for (int i = 0; i + TAMANHO_TRIGRAMA <= consulta.length(); i++) {
+            ListaIds lista = trigramas.lista(trigrama(consulta, i), false);
+            if (lista == null) {
+                return new int[0];
+            }
+            if (maisRara == null || lista.quantidade() < maisRara.quantidade()) {
+                maisRara = lista;
+            }
+        }
+        return conferir(maisRara, consulta, false);
+    }
+
+    /**
+     * Minúsculas e sem acentos, caractere por caractere (o tamanho não muda).
+     */
+    public static String dobrar(String texto) {
+        char[] dobrado = new char[texto.length()];
+        for (int i = 0; i < dobrado.length; i++) {
+            dobrado[i] = dobrar(texto.charAt(i));
+        }
+        return new String(dobrado);
+    }
+
+    private static char dobrar(char c) {
+        return c < DOBRADOS.length ? DOBRADOS[c] : Character.toLowerCase(c);
+    }
+
+    private void indexar(int id, String nome) {
+        String dobrado = dobrar(nome);
+        for (int i = 0; i < dobrado.length(); i++) {
+            if (inicioDePalavra(dobrado, i)) {
+                No no = raiz;
+                for (int j = i; j < Math.min(i + TAMANHO_TRIGRAMA - 1, dobrado.length())
+                        && Character.isLetterOrDigit(dobrado.charAt(j)); j++) {
+                    no = no.filho(dobrado.charAt(j), true);
+                    acrescentar(no.ids, id);
+                }
+            }
+            if (i + TAMANHO_TRIGRAMA <= dobrado.length()) {
+                acrescentar(trigramas.lista(trigrama(dobrado, i), true), id);
+            }
+        }
+    }
+
+    private void acrescentar(ListaIds lista, int id) {
+        if (lista.acrescentar(id)) {
+            entradas++;
+        }
+    }
+
+    // Refazer custa uma passada por todos os nomes; só compensa com bastante lixo acumulado
+    private void reconstruirSeNecessario() {
+        if (obsoletas < MIN_OBSOLETAS_RECONSTRUCAO || obsoletas * 4 < entradas) {
+            return;
+        }
+        raiz.limpar();
+        trigramas.limpar();
+        entradas = 0;
+        obsoletas = 0;
+        for (int id = 0; id < nomes.length; id++) {
+            if (nomes[id] != null) {
+                indexar(id, nomes[id]);
+            }
+        }
+    }
+
+    private ListaIds listaDoPrefixo(String consulta) {
+        No no = raiz;
+        for (int i = 0; i < consulta.length() && no != null; i++) {
+            no = no.filho(consulta.charAt(i), false);
+        }
+        return no != null ? no.ids : null;
+    }
+
+    private int[] conferir(ListaIds lista, String consulta, boolean prefixoDePalavra) {
+        int[] candidatos = lista.ids();
+        int[] encontrados = candidatos; // cada id lido é escrito no máximo na mesma posição
+        int quantos = 0;
+        for (int id : candidatos) {
+            String nome = id < nomes.length ? nomes[id] : null;
+            if (nome != null && contem(nome, consulta, prefixoDePalavra)) {
+                encontrados[quantos++] = id;
+            }
+        }
+        return Arrays.copyOf(encontrados, quantos);
+    }
+
+    // Consultas curtas que não são letras nem dígitos não estão na árvore
+    private int[] varrer(String consulta, boolean prefixoDePalavra) {
+        int[] encontrados = new int[quantidade];
+        int quantos = 0;
+        for (int id = 0; id < nomes.length; id++) {
+            if (nomes[id] != null && contem(nomes[id], consulta, prefixoDePalavra)) {
+                encontrados[quantos++] = id;
+            }
+        }
+        return Arrays.copyOf(encontrados, quantos);
+    }
+
+    private int[] todos() {
+        int[] ids = new int[quantidade];
+        int quantos = 0;
+        for (int id = 0; id < nomes.length; id++) {
+            if (nomes[id] != null) {
+                ids[quantos++] = id;
+            }
+        }
+        return ids;
+    }
+
+    // Compara dobrando o nome no caminho, sem criar strings
+    private static boolean contem(String nome, String consulta, boolean prefixoDePalavra) {
+        int tamanho = consulta.length();
+        char primeiro = consulta.charAt(0);
+        for (int i = 0; i + tamanho <= nome.length(); i++) {
+            if (dobrar(nome.charAt(i)) != primeiro || (prefixoDePalavra && !inicioDePalavra(nome, i))) {
+                continue;
+            }
+            int j = 1;
+            while (j < tamanho && dobrar(nome.charAt(i + j)) == consulta.charAt(j)) {
+                j++;
+            }
+            if (j == tamanho) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean letrasOuDigitos(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (!Character.isLetterOrDigit(texto.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean inicioDePalavra(String texto, int i) {
+        return Character.isLetterOrDigit(texto.charAt(i))
+                && (i == 0 || !Character.isLetterOrDigit(texto.charAt(i - 1)));
+    }
+
+    private static long trigrama(String dobrado, int i) {
+        return (long) dobrado.charAt(i) << 32 | (long) dobrado.charAt(i + 1) << 16 | dobrado.charAt(i + 2);
+    }
+
+    /**
+     * Ids em ordem crescente, guardados como diferenças em inteiros de tamanho variável (7 bits
+     * por byte): ids próximos, o caso das listas grandes, ocupam 1 ou 2 bytes. Ids que chegam
+     * fora de ordem (nomes alterados) ficam à parte e são misturados na leitura.
+     */
+    private static final class ListaIds {
+        private static final int[] NENHUM = new int[0];
+
+        private byte[] diferencas = new byte[4];
+        private int bytes;
+        private int tamanho;
+        private int ultimo;
+        private int[] foraDeOrdem = NENHUM;
+        private int quantosForaDeOrdem;
+
+        boolean acrescentar(int id) {
+            if (tamanho > 0 && id <= ultimo) {
+                if (id == ultimo || (quantosForaDeOrdem > 0 && foraDeOrdem[quantosForaDeOrdem - 1] == id)) {
+                    return false; // mesmo nome com o trigrama (ou a palavra) repetido
+                }
+                if (quantosForaDeOrdem == foraDeOrdem.length) {
+                    foraDeOrdem = Arrays.copyOf(foraDeOrdem, quantosForaDeOrdem * 2 + 2);
+                }
+                foraDeOrdem[quantosForaDeOrdem++] = id;
+                return true;
+            }
+            if (bytes + 5 > diferencas.length) {
+                diferencas = Arrays.copyOf(diferencas, diferencas.length + (diferencas.length >> 1) + 5);
+            }
+            int diferenca = id - ultimo;
+            while ((diferenca & ~0x7F) != 0) {
+                diferencas[bytes++] = (byte) (diferenca | 0x80);
+                diferenca >>>= 7;
+            }
+            diferencas[bytes++] = (byte) diferenca;
+            ultimo = id;
+            tamanho++;
+            return true;
+        }
+
+        int quantidade() {
+            return tamanho + quantosForaDeOrdem;
+        }
+
+        // Todos os ids, em ordem crescente e sem repetidos
+        int[] ids() {
+            int[] ids = new int[tamanho + quantosForaDeOrdem];
+            int id = 0;
+            int posicao = 0;
+            for (int i = 0; i < tamanho; i++) {
+                int diferenca = 0;
+                int deslocamento = 0;
+                byte b;
+                do {
+                    b = diferencas[posicao++];
+                    diferenca |= (b & 0x7F) << deslocamento;
+                    deslocamento += 7;
+                } while (b < 0);
+                id += diferenca;
+                ids[i] = id;
+            }
+            if (quantosForaDeOrdem == 0) {
+                return ids;
+            }
+            System.arraycopy(foraDeOrdem, 0, ids, tamanho, quantosForaDeOrdem);
+            Arrays.sort(ids);
+            int distintos = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (distintos == 0 || ids[distintos - 1] != ids[i]) {
+                    ids[distintos++] = ids[i];
+                }
+            }
+            return Arrays.copyOf(ids, distintos);
+        }
+    }
+
+    // Nó da árvore de prefixos; poucos filhos por nó, procurados em sequência
+    private static final class No {
+        private char[] letras = new char[0];
+        private No[] filhos = new No[0];
+        private final ListaIds ids = new ListaIds();
+
+        No filho(char letra, boolean criar) {
+            for (int i = 0; i < letras.length; i++) {
+                if (letras[i] == letra) {
+                    return filhos[i];
+                }
+            }
+            if (!criar) {
+                return null;
+            }
+            letras = Arrays.copyOf(letras, letras.length + 1);
+            filhos = Arrays.copyOf(filhos, filhos.length + 1);
+            letras[letras.length - 1] = letra;
+            filhos[filhos.length - 1] = new No();
+            return filhos[filhos.length - 1];
+        }
+
+        void limpar() {
+            letras = new char[0];
+            filhos = new No[0];
+        }
+    }
+
+    /**
+     * Trigrama (três caracteres em um {@code long}) → lista de ids, em endereçamento aberto,
+     * sem objetos por chave.
+     */
+    private static final class TabelaTrigramas {
+        private long[] chaves = new long[1024];
+        private ListaIds[] listas = new ListaIds[1024];
+        private int ocupados;
+
+        ListaIds lista(long chave, boolean criar) {
+            int mascara = chaves.length - 1;
+            int posicao = espalhar(chave) & mascara;
+            while (listas[posicao] != null) {
+                if (chaves[posicao] == chave) {
+                    return listas[posicao];
+                }
+                posicao = (posicao + 1) & mascara;
+            }
+            if (!criar) {
+                return null;
+            }
+            chaves[posicao] = chave;
+            listas[posicao] = new ListaIds();
+            ListaIds nova = listas[posicao];
+            if (++ocupados * 2 > chaves.length) {
+                crescer();
+            }
+            return nova;
+        }
+
+        void limpar() {
+            chaves = new long[1024];
+            listas = new ListaIds[1024];
+            ocupados = 0;
+        }
+
+        private void crescer() {
+            long[] chavesAntigas = chaves;
+            ListaIds[] listasAntigas = listas;
+            chaves = new long[chavesAntigas.length * 2];
+            listas = new ListaIds[chaves.length];
+            int mascara = chaves.length - 1;
+            for (int i = 0; i < chavesAntigas.length; i++) {
+                if (listasAntigas[i] != null) {
+                    int posicao = espalhar(chavesAntigas[i]) & mascara;
+                    while (listas[posicao] != null) {
+                        posicao = (posicao + 1) & mascara;
+                    }
+                    chaves[posicao] = chavesAntigas[i];
+                    listas[posicao] = listasAntigas[i];
+                }
+            }
+        }
+
+        private static int espalhar(long chave) {
+            long h = chave * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -5,6 +5,8 @@ public class Produto {
     private String nome;
     private double preco;
     private int estoque;
+    // Incrementada a cada atualização gravada; usada para detectar edições concorrentes
+    private int versao;
 
     public Produto() {
     }
@@ -22,6 +24,11 @@ public class Produto {
         this.estoque = estoque;
     }
 
+    public Produto(int id, String nome, double preco, int estoque, int versao) {
+        this(id, nome, preco, estoque);
+        this.versao = versao;
+    }
+
     public int getId() {
         return id;
     }
@@ -54,6 +61,14 @@ public class Produto {
         this.estoque = estoque;
     }
 
+    public int getVersao() {
+        return versao;
+    }
+
+    public void setVersao(int versao) {
+        this.versao = versao;
+    }
+
     @Override
     public String toString() {
         return nome;
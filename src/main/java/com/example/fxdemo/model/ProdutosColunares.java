@@ -0,0 +1,293 @@
+package com.example.fxdemo.model;
+
+import java.util.Arrays;
+
+/**
+ * Produtos guardados em colunas de tipos primitivos: {@code int[]} de ids, {@code long[]} de
+ * preços em centavos, {@code int[]} de estoques, {@code int[]} de versões e {@code int[]} de
+ * códigos de nome (cada nome distinto é guardado uma vez, em um {@link DicionarioNomes}).
+ * São cerca de 24 bytes por linha, sem um objeto por produto, e varreduras e agregações
+ * percorrem arrays contíguos.
+ * <p>
+ * Objetos {@link Produto} só são criados sob demanda, por {@link #produto(int)}; são cópias
+ * desligadas das colunas. Não é thread-safe.
+ */
+public class ProdutosColunares {
+    private int[] ids;
+    private long[] precosCentavos;
+    private int[] estoques;
+    private int[] versoes;
+    private int[] nomes;
+    private int tamanho;
+    private final DicionarioNomes dicionario;
+    // Com ids crescentes (o caso normal), a busca por id é binária
+    private boolean ordenadoPorId = true;
+
+    public ProdutosColunares() {
+        this(16);
+    }
+
+    public ProdutosColunares(int capacidade) {
+        capacidade = Math.max(capacidade, 1);
+        ids = new int[capacidade];
+        precosCentavos = new long[capacidade];
+        estoques = new int[capacidade];
+        versoes = new int[capacidade];
+        nomes = new int[capacidade];
+        dicionario = new DicionarioNomes(capacidade);
+    }
+
+    private ProdutosColunares(ProdutosColunares outro) {
+        int capacidade = Math.max(outro.tamanho, 1);
+        ids = Arrays.copyOf(outro.ids, capacidade);
+        precosCentavos = Arrays.copyOf(outro.precosCentavos, capacidade);
+        estoques = Arrays.copyOf(outro.estoques, capacidade);
+        versoes = Arrays.copyOf(outro.versoes, capacidade);
+        nomes = Arrays.copyOf(outro.nomes, capacidade);
+        tamanho = outro.tamanho;
+        dicionario = outro.dicionario.copia();
+        ordenadoPorId = outro.ordenadoPorId;
+    }
+
+    /**
+     * Cópia independente (as colunas são copiadas; os nomes, imutáveis, são compartilhados).
+     */
+    public ProdutosColunares copia() {
+        return new ProdutosColunares(this);
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public int getId(int linha) {
+        verificar(linha);
+        return ids[linha];
+    }
+
+    public String getNome(int linha) {
+        verificar(linha);
+        return dicionario.nome(nomes[linha]);
+    }
+
+    public long getPrecoCentavos(int linha) {
+        verificar(linha);
+        return precosCentavos[linha];
+    }
+
+    public double getPreco(int linha) {
+        return getPrecoCentavos(linha) / 100.0;
+    }
+
+    public int getEstoque(int linha) {
+        verificar(linha);
+        return estoques[linha];
+    }
+
+    public int getVersao(int linha) {
+        verificar(linha);
+        return versoes[linha];
+    }
+
+    /**
+     * Novo objeto com os dados da linha.
+     */
+    public Produto produto(int linha) {
+        verificar(linha);
+        return new Produto(ids[linha], dicionario.nome(nomes[linha]), precosCentavos[linha] / 100.0, estoques[linha],
+                versoes[linha]);
+    }
+
+    public int adicionar(Produto produto) {
+        int linha = adicionar(produto.getId(), produto.getNome(), centavos(produto.getPreco()), produto.getEstoque());
+        versoes[linha] = produto.getVersao();
+        return linha;
+    }
+
+    /**
+     * Acrescenta uma linha no fim e devolve o índice dela.
+     */
+    public int adicionar(int id, String nome, long precoCentavos, int estoque) {
+        if (tamanho == ids.length) {
+            int capacidade = ids.length + (ids.length >> 1) + 1;
+            ids = Arrays.copyOf(ids, capacidade);
+            precosCentavos = Arrays.copyOf(precosCentavos, capacidade);
+            estoques = Arrays.copyOf(estoques, capacidade);
+            versoes = Arrays.copyOf(versoes, capacidade);
+            nomes = Arrays.copyOf(nomes, capacidade);
+        }
+        if (tamanho > 0 && id <= ids[tamanho - 1]) {
+            ordenadoPorId = false;
+        }
+        ids[tamanho] = id;
+        precosCentavos[tamanho] = precoCentavos;
+        estoques[tamanho] = estoque;
+        versoes[tamanho] = 0;
+        nomes[tamanho] = dicionario.referenciar(nome);
+        return tamanho++;
+    }
+
+    /**
+     * Troca os dados da linha, mantendo o id e a versão.
+     */
+    public void definir(int linha, String nome, long precoCentavos, int estoque) {
+        verificar(linha);
+        int codigo = dicionario.referenciar(nome);
+        dicionario.liberar(nomes[linha]);
+        nomes[linha] = codigo;
+        precosCentavos[linha] = precoCentavos;
+        estoques[linha] = estoque;
+    }
+
+    public void definirVersao(int linha, int versao) {
+        verificar(linha);
+        versoes[linha] = versao;
+    }
+
+    public void definirId(int linha, int id) {
+        verificar(linha);
+        ids[linha] = id;
+        if ((linha > 0 && ids[linha - 1] >= id) || (linha + 1 < tamanho && ids[linha + 1] <= id)) {
+            ordenadoPorId = false;
+        }
+    }
+
+    /**
+     * Remove a linha; as seguintes sobem uma posição.
+     */
+    public void remover(int linha) {
+        verificar(linha);
+        dicionario.liberar(nomes[linha]);
+        int seguintes = tamanho - linha - 1;
+        System.arraycopy(ids, linha + 1, ids, linha, seguintes);
+        System.arraycopy(precosCentavos, linha + 1, precosCentavos, linha, seguintes);
+        System.arraycopy(estoques, linha + 1, estoques, linha, seguintes);
+        System.arraycopy(versoes, linha + 1, versoes, linha, seguintes);
+        System.arraycopy(nomes, linha + 1, nomes, linha, seguintes);
+        tamanho--;
+    }
+
+    public void limpar() {
+        tamanho = 0;
+        dicionario.limpar();
+        ordenadoPorId = true;
+    }
+
+    /**
+     * Índice da linha com o id, ou -1.
+     */
+    public int linhaDoId(int id) {
+        if (ordenadoPorId) {
+            int linha = Arrays.binarySearch(ids, 0, tamanho, id);
+            return linha >= 0 ? linha : -1;
+        }
+        for (int i = 0; i < tamanho; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Primeira linha com id maior que o informado (o tamanho, se não houver), para percorrer as
+     * linhas em páginas por chave. Só faz sentido com as linhas em ordem de id.
+     */
+    public int primeiraLinhaAposId(int id) {
+        if (!ordenadoPorId) {
+            throw new IllegalStateException("Linhas fora da ordem de id");
+        }
+        int linha = Arrays.binarySearch(ids, 0, tamanho, id);
+        return linha >= 0 ? linha + 1 : -linha - 1;
+    }
+
+    /**
+     * Linhas (em ordem crescente) dos ids informados, também em ordem crescente; ids que não
+     * estão aqui são ignorados. Com as linhas ordenadas por id, as duas sequências são
+     * percorridas juntas, uma única vez.
+     */
+    public int[] linhasDosIds(int[] idsOrdenados) {
+        int[] linhas = new int[Math.min(idsOrdenados.length, tamanho)];
+        int quantas = 0;
+        if (ordenadoPorId) {
+            int linha = 0;
+            for (int i = 0; i < idsOrdenados.length && linha < tamanho; i++) {
+                while (linha < tamanho && ids[linha] < idsOrdenados[i]) {
+                    linha++;
+                }
+                if (linha < tamanho && ids[linha] == idsOrdenados[i]) {
+                    linhas[quantas++] = linha++;
+                }
+            }
+            return Arrays.copyOf(linhas, quantas);
+        }
+        for (int linha = 0; linha < tamanho; linha++) {
+            if (Arrays.binarySearch(idsOrdenados, ids[linha]) >= 0) {
+                linhas[quantas++] = linha;
+            }
+        }
+        return Arrays.copyOf(linhas, quantas);
+    }
+
+    /**
+     * Primeira linha com exatamente esses dados, ou -1. O nome vira um código uma única vez e a
+     * varredura compara só inteiros.
+     */
+    public int procurar(String nome, long precoCentavos, int estoque) {
+        int codigo = dicionario.procurar(nome);
+        if (codigo < 0) {
+            return -1;
+        }
+        for (int i = 0; i < tamanho; i++) {
+            if (nomes[i] == codigo && precosCentavos[i] == precoCentavos && estoques[i] == estoque) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Se a linha tem exatamente esses dados.
+     */
+    public boolean mesmoConteudo(int linha, String nome, long precoCentavos, int estoque) {
+        verificar(linha);
+        return precosCentavos[linha] == precoCentavos && estoques[linha] == estoque
+                && dicionario.nome(nomes[linha]).equals(nome);
+    }
+
+    public long somaEstoque() {
+        long soma = 0;
+        for (int i = 0; i < tamanho; i++) {
+            soma += estoques[i];
+        }
+        return soma;
+    }
+
+    /**
+     * Soma de preço × estoque de todas as linhas, em centavos.
+     */
+    public long valorEmEstoqueCentavos() {
+        long soma = 0;
+        for (int i = 0; i < tamanho; i++) {
+            soma += precosCentavos[i] * estoques[i];
+        }
+        return soma;
+    }
+
+    public int nomesDistintos() {
+        return dicionario.distintos();
+    }
+
+    /**
+     * Preço arredondado para centavos, como no CSV.
+     */
+    public static long centavos(double preco) {
+        return Math.round(preco * 100);
+    }
+
+    private void verificar(int linha) {
+        if (linha < 0 || linha >= tamanho) {
+            throw new IndexOutOfBoundsException(linha);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.fxdemo.service;
+
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.concurrent.Task;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Executa o acesso a dados fora da JavaFX Application Thread, em threads virtuais.
+ * Os callbacks de conclusão e falha rodam de volta na thread da interface (o {@link Task}
+ * os entrega via Platform.runLater). Deve ser chamado a partir da thread da interface.
+ */
+public class ServicoAssincrono {
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+    private static final long ESPERA_ENCERRAMENTO_MS = Long.getLong("fxdemo.encerramento.esperaMs", 2000);
+
+    private final Set<Task<?>> emAndamento = new HashSet<>();
+    private final ReadOnlyBooleanWrapper ocupado = new ReadOnlyBooleanWrapper(false);
+
+    /**
+     * Executa o trabalho em segundo plano e marca o serviço como ocupado até terminar.
+     */
+    public <T> Task<T> executar(Callable<T> trabalho, Consumer<T> aoConcluir, Consumer<Throwable> aoFalhar) {
+        Task<T> task = criarTarefa(trabalho, aoConcluir, aoFalhar, true);
+        emAndamento.add(task);
+        ocupado.set(true);
+        EXECUTOR.execute(task);
+        return task;
+    }
+
+    /**
+     * Como {@link #executar}, mas sem acionar o indicador de ocupado (ex.: carga de páginas na rolagem).
+     */
+    public <T> Task<T> executarEmSegundoPlano(Callable<T> trabalho, Consumer<T> aoConcluir, Consumer<Throwable> aoFalhar) {
+        Task<T> task = criarTarefa(trabalho, aoConcluir, aoFalhar, false);
+        EXECUTOR.execute(task);
+        return task;
+    }
+
+    /**
+     * Cancela as tarefas sem interromper as threads: elas gravam arquivos, e uma interrupção no
+     * meio de uma escrita em FileChannel fecha o canal. Quem precisa parar antes do fim confere
+     * o próprio sinal de cancelamento (ex.: {@link com.example.fxdemo.dao.CancelamentoConsulta}).
+     */
+    public void cancelarTodas() {
+        for (Task<?> task : new ArrayList<>(emAndamento)) {
+            task.cancel(false);
+        }
+    }
+
+    public boolean isOcupado() {
+        return ocupado.get();
+    }
+
+    public ReadOnlyBooleanProperty ocupadoProperty() {
+        return ocupado.getReadOnlyProperty();
+    }
+
+    /**
+     * Espera as tarefas em andamento terminarem (até {@code fxdemo.encerramento.esperaMs}, 2 s por
+     * padrão) antes de interromper as que restarem, para que o que elas gravam chegue ao disco.
+     */
+    public static void encerrar() {
+        EXECUTOR.shutdown();
+        try {
+            if (!EXECUTOR.awaitTermination(ESPERA_ENCERRAMENTO_MS, TimeUnit.MILLISECONDS)) {
+                EXECUTOR.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            EXECUTOR.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> Task<T> criarTarefa(Callable<T> trabalho, Consumer<T> aoConcluir, Consumer<Throwable> aoFalhar,
+                                    boolean rastrear) {
+        Task<T> task = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                return trabalho.call();
+            }
+        };
+        task.setOnSucceeded(e -> {
+            finalizar(task, rastrear);
+            aoConcluir.accept(task.getValue());
+        });
+        task.setOnFailed(e -> {
+            finalizar(task, rastrear);
+            aoFalhar.accept(task.getException());
+        });
+        task.setOnCancelled(e -> finalizar(task, rastrear));
+        return task;
+    }
+
+    private void finalizar(Task<?> task, boolean rastrear) {
+        if (rastrear) {
+            emAndamento.remove(task);
+            ocupado.set(!emAndamento.isEmpty());
+        }
+    }
+}